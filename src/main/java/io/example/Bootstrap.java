@@ -0,0 +1,61 @@
+package io.example;
+
+import akka.javasdk.DependencyProvider;
+import akka.javasdk.ServiceSetup;
+import akka.javasdk.annotations.Setup;
+import akka.javasdk.client.ComponentClient;
+import com.typesafe.config.Config;
+import io.example.api.AdmissionControl;
+import io.example.api.SingleFlight;
+import io.example.application.ConsumerRetries;
+import io.example.application.HoldMetrics;
+import io.example.application.SlotWarmup;
+
+// Service wide setup. Holds the shared, in-process objects that components
+// get injected through their constructors.
+@Setup
+public class Bootstrap implements ServiceSetup {
+
+    private final AdmissionControl admissionControl;
+    private final SingleFlight singleFlight;
+    private final HoldMetrics holdMetrics = new HoldMetrics();
+    private final SlotWarmup slotWarmup;
+    private final ConsumerRetries consumerRetries;
+
+    public Bootstrap(ComponentClient componentClient, Config config) {
+        this.admissionControl = new AdmissionControl(config.getConfig("flight.admission"));
+        this.singleFlight = new SingleFlight(config.getConfig("flight.single-flight"));
+        this.slotWarmup = new SlotWarmup(componentClient, config.getConfig("flight.warmup"));
+        this.consumerRetries = new ConsumerRetries(config.getConfig("flight.participant-consumer"));
+    }
+
+    // Warm-up runs in the background, the service reports ready without
+    // waiting for it
+    @Override
+    public void onStartup() {
+        if (slotWarmup.isEnabled()) {
+            slotWarmup.start();
+        }
+    }
+
+    @Override
+    public DependencyProvider createDependencyProvider() {
+        return new DependencyProvider() {
+            @Override
+            public <T> T getDependency(Class<T> clazz) {
+                if (clazz == AdmissionControl.class) {
+                    return clazz.cast(admissionControl);
+                } else if (clazz == SingleFlight.class) {
+                    return clazz.cast(singleFlight);
+                } else if (clazz == HoldMetrics.class) {
+                    return clazz.cast(holdMetrics);
+                } else if (clazz == SlotWarmup.class) {
+                    return clazz.cast(slotWarmup);
+                } else if (clazz == ConsumerRetries.class) {
+                    return clazz.cast(consumerRetries);
+                }
+                throw new IllegalArgumentException("No dependency of type " + clazz.getName());
+            }
+        };
+    }
+}
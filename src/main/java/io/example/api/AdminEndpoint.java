@@ -0,0 +1,201 @@
+package io.example.api;
+
+import akka.http.javadsl.model.HttpResponse;
+import akka.javasdk.CommandException;
+import akka.javasdk.annotations.Acl;
+import akka.javasdk.annotations.http.Get;
+import akka.javasdk.annotations.http.HttpEndpoint;
+import akka.javasdk.annotations.http.Post;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.AbstractHttpEndpoint;
+import akka.javasdk.http.HttpException;
+import akka.javasdk.http.HttpResponses;
+import com.typesafe.config.Config;
+import io.example.application.ConsumerRetries;
+import io.example.application.HoldMetrics;
+import io.example.application.ParkedEventsEntity;
+import io.example.application.ParkedEventsView;
+import io.example.application.ParticipantSlotsRebuildWorkflow;
+import io.example.application.SlotToParticipantConsumer;
+import io.example.application.SlotWarmup;
+import io.example.domain.SlotIds;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Operational routes, only reachable from other services in the project.
+@Acl(allow = @Acl.Matcher(service = "*"))
+@HttpEndpoint("/admin")
+public class AdminEndpoint extends AbstractHttpEndpoint {
+    private final Logger log = LoggerFactory.getLogger(AdminEndpoint.class);
+
+    private final ComponentClient componentClient;
+    private final AdmissionControl admissionControl;
+    private final SingleFlight singleFlight;
+    private final HoldMetrics holdMetrics;
+    private final SlotWarmup slotWarmup;
+    private final ConsumerRetries consumerRetries;
+    private final int defaultRebuildBatchSize;
+
+    public AdminEndpoint(ComponentClient componentClient, Config config, AdmissionControl admissionControl,
+                         SingleFlight singleFlight, HoldMetrics holdMetrics, SlotWarmup slotWarmup,
+                         ConsumerRetries consumerRetries) {
+        this.componentClient = componentClient;
+        this.admissionControl = admissionControl;
+        this.singleFlight = singleFlight;
+        this.holdMetrics = holdMetrics;
+        this.slotWarmup = slotWarmup;
+        this.consumerRetries = consumerRetries;
+        this.defaultRebuildBatchSize = config.getInt("flight.rebuild.default-batch-size");
+    }
+
+    // Starts rebuilding the participant slot projection for all hourly slots
+    // from fromSlotId (inclusive) to toSlotId (exclusive). Progress can be
+    // followed through the matching GET route.
+    @Post("/rebuild/participant-slots/{rebuildId}")
+    public HttpResponse startParticipantSlotsRebuild(String rebuildId, RebuildRequest request) {
+        if (request.fromSlotId() == null || request.toSlotId() == null) {
+            throw HttpException.badRequest("fromSlotId and toSlotId are required");
+        }
+        try {
+            if (SlotIds.parse(request.fromSlotId()).isAfter(SlotIds.parse(request.toSlotId()))) {
+                throw HttpException.badRequest("fromSlotId must not be after toSlotId");
+            }
+        } catch (DateTimeParseException e) {
+            throw HttpException.badRequest("Slot IDs must follow the yyyy-MM-dd-HH format");
+        }
+
+        int batchSize = request.batchSize() != null && request.batchSize() > 0
+                ? request.batchSize() : defaultRebuildBatchSize;
+        try {
+            log.info("Starting participant slots rebuild {}: {}", rebuildId, request);
+            componentClient
+                    .forWorkflow(rebuildId)
+                    .method(ParticipantSlotsRebuildWorkflow::start)
+                    .invoke(new ParticipantSlotsRebuildWorkflow.Command.StartRebuild(
+                            request.fromSlotId(), request.toSlotId(), batchSize, request.force()));
+            return HttpResponses.accepted();
+        } catch (CommandException e) {
+            throw HttpException.badRequest(e.getMessage());
+        }
+    }
+
+    // Returns progress and throughput of a projection rebuild
+    @Get("/rebuild/participant-slots/{rebuildId}")
+    public ParticipantSlotsRebuildWorkflow.RebuildStatus getParticipantSlotsRebuild(String rebuildId) {
+        try {
+            return componentClient
+                    .forWorkflow(rebuildId)
+                    .method(ParticipantSlotsRebuildWorkflow::getStatus)
+                    .invoke();
+        } catch (CommandException e) {
+            throw HttpException.notFound();
+        }
+    }
+
+    // Lists all participant slots with events parked by SlotToParticipantConsumer
+    @Get("/parked")
+    public ParkedEventsView.ParkedList parkedEvents() {
+        return componentClient
+                .forView()
+                .method(ParkedEventsView::getAll)
+                .invoke();
+    }
+
+    // Returns the parked events of one participant slot, oldest first
+    @Get("/parked/{participantSlotId}")
+    public ParkedEventsEntity.State parkedEventsFor(String participantSlotId) {
+        return componentClient
+                .forKeyValueEntity(participantSlotId)
+                .method(ParkedEventsEntity::getParked)
+                .invoke();
+    }
+
+    // Applies the parked events of one participant slot in order. Stops at
+    // the first event that still fails, which stays parked with the rest.
+    // Events the consumer parked during the replay stay parked as well. The
+    // applied events are removed by sequence number, so a replay that runs
+    // twice at once or is retried never removes events it didn't apply.
+    @Post("/parked/{participantSlotId}/replay")
+    public ReplayResult replayParkedEvents(String participantSlotId) {
+        List<ParkedEventsEntity.ParkedEvent> events = parkedEventsFor(participantSlotId).events();
+        int replayed = 0;
+        long lastReplayedSequence = 0;
+        String error = "";
+        for (ParkedEventsEntity.ParkedEvent event : events) {
+            try {
+                SlotToParticipantConsumer.applyToParticipantSlot(componentClient, event.toBookingEvent());
+                replayed++;
+                lastReplayedSequence = event.sequence();
+            } catch (RuntimeException e) {
+                log.warn("Replay of parked event {} failed", event, e);
+                error = e.getMessage();
+                break;
+            }
+        }
+        int remaining = events.size() - replayed;
+        if (replayed > 0) {
+            remaining = componentClient
+                    .forKeyValueEntity(participantSlotId)
+                    .method(ParkedEventsEntity::removeReplayed)
+                    .invoke(lastReplayedSequence);
+        }
+        consumerRetries.replayed(replayed);
+        return new ReplayResult(replayed, remaining, error);
+    }
+
+    // Returns retry, parked and replayed counts of SlotToParticipantConsumer
+    // on this service instance
+    @Get("/metrics/participant-consumer")
+    public ConsumerRetries.Stats participantConsumerMetrics() {
+        return consumerRetries.stats();
+    }
+
+    // Warms up the upcoming slots, e.g. after a rebalance. The entities are
+    // loaded wherever in the cluster they run. Does nothing if a warm-up
+    // started from this instance is already running.
+    @Post("/warmup")
+    public HttpResponse startWarmup() {
+        return slotWarmup.start() ? HttpResponses.accepted() : HttpResponses.ok();
+    }
+
+    // Returns the outcome of the last completed warm-up on this instance
+    @Get("/metrics/warmup")
+    public SlotWarmup.Stats warmupMetrics() {
+        SlotWarmup.Stats stats = slotWarmup.lastRun();
+        if (stats == null) {
+            throw HttpException.notFound();
+        }
+        return stats;
+    }
+
+    // Returns admitted and shed request counts of this service instance
+    @Get("/metrics/admission")
+    public AdmissionControl.Stats admissionMetrics() {
+        return admissionControl.stats();
+    }
+
+    // Returns, per route, the component calls made and the requests that
+    // shared an in-flight call instead
+    @Get("/metrics/single-flight")
+    public Map<String, SingleFlight.RouteStats> singleFlightMetrics() {
+        return singleFlight.stats();
+    }
+
+    // Returns placed, rejected, converted and expired hold counts of this
+    // service instance
+    @Get("/metrics/holds")
+    public HoldMetrics.Stats holdMetrics() {
+        return holdMetrics.stats();
+    }
+
+    public record ReplayResult(int replayed, int remaining, String error) {
+    }
+
+    // Public API representation of a projection rebuild request. Rows are
+    // only rewritten where they differ from the slot unless force is set.
+    public record RebuildRequest(String fromSlotId, String toSlotId, Integer batchSize, boolean force) {
+    }
+}
@@ -0,0 +1,195 @@
+package io.example.api;
+
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.StatusCodes;
+import akka.http.javadsl.model.headers.RetryAfter;
+import com.typesafe.config.Config;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Sheds load before it reaches a hot BookingSlotEntity. Each slot has a cap
+// on concurrently executing requests and each participant has a token bucket
+// rate limit. Requests over either limit are rejected straight away with a
+// 429 and a Retry-After header. Limits apply per service instance, shared by
+// all endpoint instances through the service's dependency provider.
+public class AdmissionControl {
+
+    private final boolean enabled;
+    private final int maxConcurrentPerSlot;
+    private final double participantTokensPerSecond;
+    private final int participantBurst;
+    private final int maxTrackedParticipants;
+    private final long retryAfterSeconds;
+    private final long sweepIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Integer> inFlightBySlot = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> bucketsByParticipant = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shedBySlotConcurrency = new LongAdder();
+    private final LongAdder shedByParticipantRate = new LongAdder();
+
+    public AdmissionControl(Config config) {
+        this(config, System::nanoTime);
+    }
+
+    AdmissionControl(Config config, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.enabled = config.getBoolean("enabled");
+        this.maxConcurrentPerSlot = config.getInt("max-concurrent-requests-per-slot");
+        this.participantTokensPerSecond = config.getDouble("participant-requests-per-second");
+        this.participantBurst = config.getInt("participant-burst");
+        this.maxTrackedParticipants = config.getInt("max-tracked-participants");
+        this.retryAfterSeconds = Math.max(1, Math.ceilDiv(config.getDuration("retry-after").toMillis(), 1000));
+        // Time for an empty bucket to fill up again
+        this.sweepIntervalNanos = (long) Math.ceil(participantBurst / participantTokensPerSecond * TimeUnit.SECONDS.toNanos(1));
+        this.nextSweepNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public record Stats(
+            long admitted,
+            long shedBySlotConcurrency,
+            long shedByParticipantRate,
+            int slotsInFlight,
+            int trackedParticipants) {
+    }
+
+    public Stats stats() {
+        return new Stats(admitted.sum(), shedBySlotConcurrency.sum(), shedByParticipantRate.sum(),
+                inFlightBySlot.size(), bucketsByParticipant.size());
+    }
+
+    // Runs the handler if both the participant's rate limit and the slot's
+    // concurrency limit allow it. Either ID may be null when the route has
+    // no such concept. A request shed by the slot limit gives its token back,
+    // so it doesn't count against the participant's rate.
+    HttpResponse admit(String slotId, String participantId, Supplier<HttpResponse> handler) {
+        if (!enabled) {
+            return handler.get();
+        }
+
+        TokenBucket bucket = null;
+        if (participantId != null) {
+            long now = nanoClock.getAsLong();
+            bucket = bucket(participantId, now);
+            long waitNanos = bucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                shedByParticipantRate.increment();
+                // Rounded up so clients that honour Retry-After aren't rejected again
+                return tooManyRequests(Math.max(1, Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1))));
+            }
+        }
+
+        if (slotId != null && !enterSlot(slotId)) {
+            if (bucket != null) {
+                bucket.refund();
+            }
+            shedBySlotConcurrency.increment();
+            return tooManyRequests(retryAfterSeconds);
+        }
+
+        admitted.increment();
+        try {
+            return handler.get();
+        } finally {
+            if (slotId != null) {
+                exitSlot(slotId);
+            }
+        }
+    }
+
+    private boolean enterSlot(String slotId) {
+        boolean[] entered = {false};
+        inFlightBySlot.compute(slotId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxConcurrentPerSlot) {
+                return count;
+            }
+            entered[0] = true;
+            return current + 1;
+        });
+        return entered[0];
+    }
+
+    private void exitSlot(String slotId) {
+        // Drop the entry once the slot goes idle so the map only holds busy slots
+        inFlightBySlot.computeIfPresent(slotId, (id, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private TokenBucket bucket(String participantId, long now) {
+        TokenBucket bucket = bucketsByParticipant.get(participantId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (bucketsByParticipant.size() >= maxTrackedParticipants) {
+            sweepIdleBuckets(now);
+        }
+        return bucketsByParticipant.computeIfAbsent(participantId,
+                id -> new TokenBucket(participantBurst, participantTokensPerSecond, now));
+    }
+
+    // A full bucket behaves exactly like a new one, so it is safe to forget.
+    // The sweep scans every bucket, so it runs at most once per refill
+    // interval, by a single caller. Any bucket left idle since the previous
+    // sweep is full by then, so each sweep drops everything that went idle.
+    private void sweepIdleBuckets(long now) {
+        long next = nextSweepNanos.get();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + sweepIntervalNanos)) {
+            return;
+        }
+        bucketsByParticipant.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static HttpResponse tooManyRequests(long retryAfterSeconds) {
+        return HttpResponse.create()
+                .withStatus(StatusCodes.TOO_MANY_REQUESTS)
+                .addHeader(RetryAfter.create(retryAfterSeconds))
+                .withEntity("Too many requests, retry after " + retryAfterSeconds + " seconds");
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int capacity, double tokensPerSecond, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+
+        // Takes a token and returns 0, or returns the nanos until one is available
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        // Returns a token taken by a request that was not admitted after all
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
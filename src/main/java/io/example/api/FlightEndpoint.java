@@ -1,11 +1,17 @@
 package io.example.api;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 import io.example.application.BookingSlotEntity;
+import io.example.application.HoldExpiryAction;
+import io.example.application.HoldMetrics;
+import io.example.application.LessonSeriesWorkflow;
 import io.example.application.ParticipantSlotsView;
+import io.example.application.SlotBoardView;
+import io.example.application.SlotOccupancyView;
 import io.example.domain.Participant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,8 +26,11 @@ import akka.javasdk.client.ComponentClient;
 import akka.javasdk.http.AbstractHttpEndpoint;
 import akka.javasdk.http.HttpException;
 import akka.javasdk.http.HttpResponses;
+import akka.javasdk.timer.TimerScheduler;
+import com.typesafe.config.Config;
 import io.example.application.ParticipantSlotsView.SlotList;
 import io.example.domain.Participant.ParticipantType;
+import io.example.domain.SlotRange;
 import io.example.domain.Timeslot;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
@@ -30,9 +39,27 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
     private final Logger log = LoggerFactory.getLogger(FlightEndpoint.class);
 
     private final ComponentClient componentClient;
+    private final ResponseEncoding responseEncoding;
+    private final AdmissionControl admissionControl;
+    private final SingleFlight singleFlight;
+    private final TimerScheduler timerScheduler;
+    private final HoldMetrics holdMetrics;
+    private final int maxSeriesSlots;
+    private final Duration defaultHoldTtl;
+    private final Duration maxHoldTtl;
 
-    public FlightEndpoint(ComponentClient componentClient) {
+    public FlightEndpoint(ComponentClient componentClient, TimerScheduler timerScheduler, Config config,
+                          AdmissionControl admissionControl, SingleFlight singleFlight, HoldMetrics holdMetrics) {
         this.componentClient = componentClient;
+        this.timerScheduler = timerScheduler;
+        this.admissionControl = admissionControl;
+        this.singleFlight = singleFlight;
+        this.holdMetrics = holdMetrics;
+        this.responseEncoding = new ResponseEncoding(
+                config.getInt("flight.responses.compression-threshold-bytes"));
+        this.maxSeriesSlots = config.getInt("flight.series.max-slots");
+        this.defaultHoldTtl = config.getDuration("flight.holds.default-ttl");
+        this.maxHoldTtl = config.getDuration("flight.holds.max-ttl");
     }
 
     public record ExternalTimeslot(List<Timeslot.Booking> bookings, List<Participant> available){}
@@ -42,21 +69,96 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
     // "available" at the time of booking.
     @Post("/bookings/{slotId}")
     public HttpResponse createBooking(String slotId, BookingRequest request) {
-        try {
-            log.info("Creating booking for slot {}: {}", slotId, request);
+        return admissionControl.admit(slotId, request.studentId, () -> {
+            try {
+                log.info("Creating booking for slot {}: {}", slotId, request);
+
+                BookingSlotEntity.Command.BookReservation bookReservation = new BookingSlotEntity.Command.BookReservation(
+                        request.studentId, request.aircraftId, request.instructorId, request.bookingId
+                );
+
+                componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::bookSlot)
+                        .invoke(bookReservation);
 
-            BookingSlotEntity.Command.BookReservation bookReservation = new BookingSlotEntity.Command.BookReservation(
-                    request.studentId, request.aircraftId, request.instructorId, request.bookingId
-            );
+                return HttpResponses.created();
+            } catch (CommandException e){
+                throw HttpException.badRequest(e.getMessage());
+            }
+        });
+    }
 
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::bookSlot)
-                    .invoke(bookReservation);
+    // Holds the three participants for a short time so that a booking with
+    // the hold's ID can't be beaten to them. The hold is released when it is
+    // booked or when its TTL runs out.
+    @Post("/holds/{slotId}")
+    public HttpResponse createHold(String slotId, HoldRequest request) {
+        Duration ttl = request.ttlSeconds() == null ? defaultHoldTtl : Duration.ofSeconds(request.ttlSeconds());
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxHoldTtl) > 0) {
+            throw HttpException.badRequest("Hold TTL must be between 1 and " + maxHoldTtl.toSeconds() + " seconds");
+        }
+        return admissionControl.admit(slotId, request.studentId, () -> {
+            try {
+                log.info("Creating hold for slot {}: {}", slotId, request);
+                componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::holdSlot)
+                        .invoke(new BookingSlotEntity.Command.HoldParticipants(
+                                request.studentId, request.aircraftId, request.instructorId, request.holdId, ttl));
+            } catch (CommandException e) {
+                holdMetrics.holdRejected();
+                throw HttpException.badRequest(e.getMessage());
+            }
+            holdMetrics.holdPlaced();
 
+            // Expired holds are already ignored by the slot, the timer only
+            // releases them so they don't pile up in its state
+            timerScheduler.createSingleTimer(
+                    HoldExpiryAction.timerName(slotId, request.holdId),
+                    ttl,
+                    componentClient
+                            .forTimedAction()
+                            .method(HoldExpiryAction::expire)
+                            .deferred(new HoldExpiryAction.ExpireHold(slotId, request.holdId)));
             return HttpResponses.created();
-        } catch (CommandException e){
-            throw HttpException.badRequest(e.getMessage());
+        });
+    }
+
+    // Books the same student, aircraft and instructor into every listed slot,
+    // or into none of them. The series ID is used as the booking ID in each
+    // slot. The slots are booked in the background, so this returns 202 and
+    // the client follows the outcome through the GET route.
+    @Post("/bookings/series/{seriesId}")
+    public HttpResponse createSeriesBooking(String seriesId, SeriesBookingRequest request) {
+        if (request.slotIds() == null || request.slotIds().isEmpty() || request.slotIds().size() > maxSeriesSlots) {
+            throw HttpException.badRequest("A series must contain between 1 and " + maxSeriesSlots + " slots");
+        }
+        return admissionControl.admit(null, request.studentId, () -> {
+            try {
+                log.info("Creating series booking {}: {}", seriesId, request);
+                componentClient
+                        .forWorkflow(seriesId)
+                        .method(LessonSeriesWorkflow::start)
+                        .invoke(new LessonSeriesWorkflow.Command.BookSeries(
+                                request.studentId, request.aircraftId, request.instructorId, request.slotIds));
+                return HttpResponses.accepted();
+            } catch (CommandException e) {
+                throw HttpException.badRequest(e.getMessage());
+            }
+        });
+    }
+
+    // Returns the current outcome of a series booking
+    @Get("/bookings/series/{seriesId}")
+    public LessonSeriesWorkflow.SeriesResult getSeriesBooking(String seriesId) {
+        try {
+            return componentClient
+                    .forWorkflow(seriesId)
+                    .method(LessonSeriesWorkflow::getResult)
+                    .invoke();
+        } catch (CommandException e) {
+            throw HttpException.notFound();
         }
     }
 
@@ -64,115 +166,176 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
     // ID and the booking ID are required.
     @Delete("/bookings/{slotId}/{bookingId}")
     public HttpResponse cancelBooking(String slotId, String bookingId) {
-        try {
-            log.info("Canceling booking id {}", bookingId);
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::cancelBooking)
-                    .invoke(bookingId);
-            return HttpResponses.ok();
-        } catch (CommandException e) {
-            throw HttpException.badRequest(e.getMessage());
-        }
+        return admissionControl.admit(slotId, null, () -> {
+            try {
+                log.info("Canceling booking id {}", bookingId);
+                componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::cancelBooking)
+                        .invoke(bookingId);
+                return HttpResponses.ok();
+            } catch (CommandException e) {
+                throw HttpException.badRequest(e.getMessage());
+            }
+        });
     }
 
     // Retrieves all slots in which a given participant has the supplied status.
     // Used to retrieve bookings and slots in which the participant is available
     @Get("/slots/{participantId}/{status}")
-    public SlotList slotsByStatus(String participantId, String status) {
-        if (!(status.equals(ParticipantSlotsView.SlotStatus.AVAILABLE) || status.equals(ParticipantSlotsView.SlotStatus.BOOKED))) {
-                throw HttpException.badRequest("Status was " + status + " but must be one of " + ParticipantSlotsView.SlotStatus.BOOKED + " +and " +
-                        ParticipantSlotsView.SlotStatus.AVAILABLE);
-        } else {
-            ParticipantSlotsView.ParticipantStatusInput participantStatusInput = new ParticipantSlotsView.ParticipantStatusInput(
-                    participantId, status
-            );
-
-            SlotList slotList = componentClient
-                    .forView()
-                    .method(ParticipantSlotsView::getSlotsByParticipantAndStatus)
-                    .invoke(participantStatusInput);
-            List<ParticipantSlotsView.SlotRow> orderedSlots = slotList.slots().stream().sorted(Comparator.comparing(ParticipantSlotsView.SlotRow::slotId)).toList();
-            return new SlotList(orderedSlots);
-        }
+    public HttpResponse slotsByStatus(String participantId, String status) {
+        return admissionControl.admit(null, participantId, () -> {
+            if (!(status.equals(ParticipantSlotsView.SlotStatus.AVAILABLE) || status.equals(ParticipantSlotsView.SlotStatus.BOOKED))) {
+                    throw HttpException.badRequest("Status was " + status + " but must be one of " + ParticipantSlotsView.SlotStatus.BOOKED + " +and " +
+                            ParticipantSlotsView.SlotStatus.AVAILABLE);
+            } else {
+                ParticipantSlotsView.ParticipantStatusInput participantStatusInput = new ParticipantSlotsView.ParticipantStatusInput(
+                        participantId, status
+                );
+
+                SlotList slotList = singleFlight.execute("slots-by-status", "slots:" + participantId + "/" + status,
+                        () -> componentClient
+                                .forView()
+                                .method(ParticipantSlotsView::getSlotsByParticipantAndStatus)
+                                .invoke(participantStatusInput));
+                List<ParticipantSlotsView.SlotRow> orderedSlots = slotList.slots().stream().sorted(Comparator.comparing(ParticipantSlotsView.SlotRow::slotId)).toList();
+                return responseEncoding.ok(new SlotList(orderedSlots), requestContext());
+            }
+        });
     }
 
     // Returns the internal availability state for a given slot
     @Get("/availability/{slotId}")
-    public Timeslot getSlot(String slotId) {
-        return componentClient
-                .forEventSourcedEntity(slotId)
-                .method(BookingSlotEntity::getSlot)
-                .invoke();
+    public HttpResponse getSlot(String slotId) {
+        return admissionControl.admit(slotId, null, () -> {
+            Timeslot timeslot = readSlot("availability", slotId);
+            return responseEncoding.ok(timeslot, requestContext());
+        });
     }
 
     @Get("/availability/public/{slotId}")
-    public ExternalTimeslot getSlotForPublic(String slotId) {
-        Timeslot timeslot =  componentClient
+    public HttpResponse getSlotForPublic(String slotId) {
+        return admissionControl.admit(slotId, null, () -> {
+            Timeslot timeslot = readSlot("public-availability", slotId);
+
+            List<Timeslot.Booking> externalBookings = timeslot.bookings().stream()
+                    .sorted(Comparator.comparing(bk -> bk.participant().id()))
+                    .sorted(Comparator.comparing(Timeslot.Booking::bookingId)).toList();
+            List<Participant> externalAvailable = timeslot.available().stream().sorted(Comparator.comparing(Participant::id)).toList();
+
+            return responseEncoding.ok(new ExternalTimeslot(externalBookings, externalAvailable), requestContext());
+        });
+    }
+
+    // Both availability routes make the same entity call, so concurrent
+    // requests for a slot share it whichever route they came through
+    private Timeslot readSlot(String route, String slotId) {
+        return singleFlight.execute(route, "slot:" + slotId, () -> componentClient
                 .forEventSourcedEntity(slotId)
                 .method(BookingSlotEntity::getSlot)
-                .invoke();
+                .invoke());
+    }
+
+    // Returns per-slot occupancy counters for every slot whose ID starts with
+    // the given prefix, e.g. 2025-08-08 for a whole day
+    @Get("/occupancy/{slotPrefix}")
+    public HttpResponse occupancyByPrefix(String slotPrefix) {
+        SlotOccupancyView.OccupancyList occupancy = componentClient
+                .forView()
+                .method(SlotOccupancyView::getOccupancyInRange)
+                .invoke(SlotRange.forPrefix(slotPrefix));
+        return responseEncoding.ok(occupancy, requestContext());
+    }
 
-        List<Timeslot.Booking> externalBookings = timeslot.bookings().stream()
-                .sorted(Comparator.comparing(bk -> bk.participant().id()))
-                .sorted(Comparator.comparing(Timeslot.Booking::bookingId)).toList();
-        List<Participant> externalAvailable = timeslot.available().stream().sorted(Comparator.comparing(Participant::id)).toList();
+    // Returns per-slot occupancy counters for all slots from fromSlotId
+    // (inclusive) to toSlotId (exclusive)
+    @Get("/occupancy/{fromSlotId}/{toSlotId}")
+    public HttpResponse occupancyInRange(String fromSlotId, String toSlotId) {
+        SlotOccupancyView.OccupancyList occupancy = componentClient
+                .forView()
+                .method(SlotOccupancyView::getOccupancyInRange)
+                .invoke(new SlotRange(fromSlotId, toSlotId));
+        return responseEncoding.ok(occupancy, requestContext());
+    }
 
-        return new ExternalTimeslot(externalBookings, externalAvailable);
+    // Returns every slot whose ID starts with the given prefix, e.g.
+    // 2025-08-08 for a whole day, with its available participants and bookings
+    @Get("/board/{slotPrefix}")
+    public HttpResponse boardByPrefix(String slotPrefix) {
+        SlotBoardView.BoardList board = componentClient
+                .forView()
+                .method(SlotBoardView::getBoardInRange)
+                .invoke(SlotRange.forPrefix(slotPrefix));
+        return responseEncoding.ok(board, requestContext());
+    }
+
+    // Returns all slots from fromSlotId (inclusive) to toSlotId (exclusive)
+    // with their available participants and bookings
+    @Get("/board/{fromSlotId}/{toSlotId}")
+    public HttpResponse boardInRange(String fromSlotId, String toSlotId) {
+        SlotBoardView.BoardList board = componentClient
+                .forView()
+                .method(SlotBoardView::getBoardInRange)
+                .invoke(new SlotRange(fromSlotId, toSlotId));
+        return responseEncoding.ok(board, requestContext());
     }
 
     // Indicates that the supplied participant is available for booking
     // within the indicated time slot
     @Post("/availability/{slotId}")
     public HttpResponse markAvailable(String slotId, AvailabilityRequest request) {
-        ParticipantType participantType;
+        return admissionControl.admit(slotId, request.participantId, () -> {
+            ParticipantType participantType;
 
-        try {
-            participantType = ParticipantType.valueOf(request.participantType().trim().toUpperCase());
-            BookingSlotEntity.Command.MarkSlotAvailable markSlotAvailable = new BookingSlotEntity.Command.MarkSlotAvailable(
-                    new Participant(request.participantId, participantType)
-            );
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::markSlotAvailable)
-                    .invoke(markSlotAvailable);
-        } catch (CommandException e) {
-            throw HttpException.badRequest(e.getMessage());
-        } catch (IllegalArgumentException ex) {
-            log.warn("Bad participant type {}", request.participantType());
-            throw HttpException.badRequest("invalid participant type");
-        }
+            try {
+                participantType = ParticipantType.valueOf(request.participantType().trim().toUpperCase());
+                BookingSlotEntity.Command.MarkSlotAvailable markSlotAvailable = new BookingSlotEntity.Command.MarkSlotAvailable(
+                        new Participant(request.participantId, participantType)
+                );
+                componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::markSlotAvailable)
+                        .invoke(markSlotAvailable);
+            } catch (CommandException e) {
+                throw HttpException.badRequest(e.getMessage());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Bad participant type {}", request.participantType());
+                throw HttpException.badRequest("invalid participant type");
+            }
 
-        log.info("Marking timeslot available for entity {}", slotId);
+            log.info("Marking timeslot available for entity {}", slotId);
 
-        // Add entity client to mark slot available
+            // Add entity client to mark slot available
 
-        return HttpResponses.ok();
+            return HttpResponses.ok();
+        });
     }
 
     // Unmarks a slot as available for the given participant.
     @Delete("/availability/{slotId}")
     public HttpResponse unmarkAvailable(String slotId, AvailabilityRequest request) {
-        ParticipantType participantType;
-        try {
-            participantType = ParticipantType.valueOf(request.participantType().trim().toUpperCase());
-            BookingSlotEntity.Command.UnmarkSlotAvailable unmarkSlotAvailable = new BookingSlotEntity.Command.UnmarkSlotAvailable(
-                    new Participant(request.participantId, participantType)
-            );
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::unmarkSlotAvailable)
-                    .invoke(unmarkSlotAvailable);
-        } catch(CommandException e){
-            throw HttpException.badRequest(e.getMessage());
-        } catch (IllegalArgumentException ex) {
-            log.warn("Bad participant type {}", request.participantType());
-            throw HttpException.badRequest("invalid participant type");
-        }
+        return admissionControl.admit(slotId, request.participantId, () -> {
+            ParticipantType participantType;
+            try {
+                participantType = ParticipantType.valueOf(request.participantType().trim().toUpperCase());
+                BookingSlotEntity.Command.UnmarkSlotAvailable unmarkSlotAvailable = new BookingSlotEntity.Command.UnmarkSlotAvailable(
+                        new Participant(request.participantId, participantType)
+                );
+                componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::unmarkSlotAvailable)
+                        .invoke(unmarkSlotAvailable);
+            } catch(CommandException e){
+                throw HttpException.badRequest(e.getMessage());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Bad participant type {}", request.participantType());
+                throw HttpException.badRequest("invalid participant type");
+            }
 
-        // Add codce to unmark slot as available
+            // Add codce to unmark slot as available
 
-        return HttpResponses.ok();
+            return HttpResponses.ok();
+        });
     }
 
     // Public API representation of a booking request
@@ -180,6 +343,17 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
             String studentId, String aircraftId, String instructorId, String bookingId) {
     }
 
+    // Public API representation of a hold request. The hold is converted by
+    // a booking request whose bookingId equals the holdId.
+    public record HoldRequest(
+            String studentId, String aircraftId, String instructorId, String holdId, Integer ttlSeconds) {
+    }
+
+    // Public API representation of a series booking request
+    public record SeriesBookingRequest(
+            String studentId, String aircraftId, String instructorId, List<String> slotIds) {
+    }
+
     // Public API representation of an availability mark/unmark request
     public record AvailabilityRequest(String participantId, String participantType) {
     }
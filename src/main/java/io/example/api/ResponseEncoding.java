@@ -0,0 +1,102 @@
+package io.example.api;
+
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntities;
+import akka.http.javadsl.model.HttpHeader;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.MediaType;
+import akka.http.javadsl.model.MediaTypes;
+import akka.http.javadsl.model.StatusCodes;
+import akka.http.javadsl.model.headers.ContentEncoding;
+import akka.http.javadsl.model.headers.HttpEncodings;
+import akka.http.javadsl.model.headers.RawHeader;
+import akka.javasdk.JsonSupport;
+import akka.javasdk.http.RequestContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+// Picks the wire format of a response body based on the request's Accept and
+// Accept-Encoding headers. JSON stays the default, clients can opt in to CBOR
+// (application/cbor) and, for payloads above the configured threshold, gzip.
+final class ResponseEncoding {
+
+    static final MediaType.Binary APPLICATION_CBOR = MediaTypes.applicationBinary("cbor", true, "cbor");
+
+    // Same modules and settings as the SDK's JSON mapper, only the format differs
+    private static final ObjectMapper CBOR_MAPPER = JsonSupport.getObjectMapper().copyWith(new CBORFactory());
+
+    private final int compressionThresholdBytes;
+
+    ResponseEncoding(int compressionThresholdBytes) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    HttpResponse ok(Object body, RequestContext context) {
+        return ok(body, context.requestHeader("Accept"), context.requestHeader("Accept-Encoding"));
+    }
+
+    HttpResponse ok(Object body, Optional<HttpHeader> accept, Optional<HttpHeader> acceptEncoding) {
+        boolean cbor = accepts(accept, "application/cbor");
+        boolean gzip = accepts(acceptEncoding, "gzip");
+
+        byte[] bytes = cbor ? encodeCbor(body) : encodeJson(body);
+        HttpResponse response = HttpResponse.create()
+                .withStatus(StatusCodes.OK)
+                .addHeader(RawHeader.create("Vary", "Accept, Accept-Encoding"));
+
+        if (gzip && bytes.length >= compressionThresholdBytes) {
+            bytes = gzip(bytes);
+            response = response.addHeader(ContentEncoding.create(HttpEncodings.GZIP));
+        }
+
+        return cbor
+                ? response.withEntity(HttpEntities.create(ContentTypes.create(APPLICATION_CBOR), bytes))
+                : response.withEntity(HttpEntities.create(ContentTypes.APPLICATION_JSON, bytes));
+    }
+
+    static byte[] encodeJson(Object body) {
+        try {
+            return JsonSupport.getObjectMapper().writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to encode response as JSON", e);
+        }
+    }
+
+    static byte[] encodeCbor(Object body) {
+        try {
+            return CBOR_MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to encode response as CBOR", e);
+        }
+    }
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Simple token match on a comma separated header, ignoring quality values
+    private static boolean accepts(Optional<HttpHeader> header, String token) {
+        return header
+                .map(h -> {
+                    for (String part : h.value().split(",")) {
+                        if (part.split(";")[0].trim().equalsIgnoreCase(token)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .orElse(false);
+    }
+}
@@ -0,0 +1,82 @@
+package io.example.api;
+
+import com.typesafe.config.Config;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Collapses concurrent identical reads into a single component call. The
+// first request for a key makes the call, requests for the same key that
+// arrive while it is in flight wait for and share its result (or failure).
+// Shared results must be treated as read-only by the callers. A request
+// that joins an in-flight call may see a result that was read before its
+// own preceding write completed, so only enable it for routes where that
+// is acceptable.
+public class SingleFlight {
+
+    private final Map<String, Boolean> enabledByRoute;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, RouteCounters> countersByRoute = new ConcurrentHashMap<>();
+
+    public SingleFlight(Config config) {
+        this.enabledByRoute = config.getConfig("routes").root().keySet().stream()
+                .collect(Collectors.toMap(route -> route, route -> config.getBoolean("routes." + route)));
+    }
+
+    public record RouteStats(long calls, long collapsed) {
+    }
+
+    public Map<String, RouteStats> stats() {
+        return countersByRoute.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                        e -> new RouteStats(e.getValue().calls.sum(), e.getValue().collapsed.sum())));
+    }
+
+    // Routes with different names can share in-flight calls as long as they
+    // use the same key for the same component call.
+    @SuppressWarnings("unchecked")
+    <T> T execute(String route, String key, Supplier<T> call) {
+        if (!enabledByRoute.getOrDefault(route, false)) {
+            return call.get();
+        }
+
+        RouteCounters counters = countersByRoute.computeIfAbsent(route, r -> new RouteCounters());
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            counters.collapsed.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                } else if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        counters.calls.increment();
+        try {
+            T result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors too, otherwise the requests waiting on this call never return
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static final class RouteCounters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder collapsed = new LongAdder();
+    }
+}
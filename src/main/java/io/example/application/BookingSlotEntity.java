@@ -7,8 +7,12 @@ import akka.javasdk.eventsourcedentity.EventSourcedEntityContext;
 import io.example.domain.BookingEvent;
 import io.example.domain.Participant;
 import io.example.domain.Timeslot;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
@@ -28,6 +32,9 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
         boolean alreadyBooked = currentState().bookings().stream().anyMatch(bk -> bk.participant().equals(cmd.participant));
         if (alreadyBooked) {
             return effects().error("Participant " + cmd.participant.id() + " already booked for this slot. To mark the participant available, please cancel the booking first.");
+        } else if (currentState().isWaiting(cmd.participant.id(), cmd.participant.participantType())) {
+            // Already available, nothing changes so no event is needed
+            return effects().reply(Done.done());
         } else {
             BookingEvent.ParticipantMarkedAvailable event = new BookingEvent.ParticipantMarkedAvailable(
                     entityId, cmd.participant.id(), cmd.participant.participantType()
@@ -41,6 +48,9 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
         boolean alreadyBooked = currentState().bookings().stream().anyMatch(bk -> bk.participant().equals(cmd.participant));
         if (alreadyBooked) {
             return effects().error("Participant " + cmd.participant.id() + " currently booked for this slot. To mark the participant unavailable, cancel the booking.");
+        } else if (!currentState().isWaiting(cmd.participant.id(), cmd.participant.participantType())) {
+            // Not available, nothing changes so no event is needed
+            return effects().reply(Done.done());
         } else {
             BookingEvent.ParticipantUnmarkedAvailable event = new BookingEvent.ParticipantUnmarkedAvailable(
                     entityId, cmd.participant.id(), cmd.participant.participantType()
@@ -52,8 +62,16 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
 
     // NOTE: booking a slot should produce 3
     // `ParticipantBooked` events
+    // A booking with the same ID and participants as an active hold converts
+    // that hold. A hold that has expired but not been released yet is
+    // released along with the booking.
     public Effect<Done> bookSlot(Command.BookReservation cmd) {
-        if (!currentState().isBookable(cmd.studentId, cmd.aircraftId, cmd.instructorId)) {
+        Instant now = Instant.now();
+        Optional<Timeslot.Hold> hold = currentState().findHold(cmd.bookingId);
+        boolean convertsHold = hold.isPresent() && hold.get().isActive(now);
+        if (convertsHold && !hold.get().isFor(cmd.studentId, cmd.aircraftId, cmd.instructorId)) {
+            return effects().error("Cannot book slot: hold " + cmd.bookingId + " is for other participants.");
+        } else if (!currentState().isBookable(cmd.studentId, cmd.aircraftId, cmd.instructorId, cmd.bookingId, now)) {
             return effects().error("Cannot book slot: one or more participants is unavailable.");
         } else if(!currentState().findBooking(cmd.bookingId).isEmpty()) {
             return effects().error("Cannot book slot: booking id already in use");
@@ -64,13 +82,45 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
                     Participant.ParticipantType.INSTRUCTOR, cmd.bookingId);
             BookingEvent.ParticipantBooked aircraftBooked = new BookingEvent.ParticipantBooked(entityId, cmd.aircraftId,
                     Participant.ParticipantType.AIRCRAFT, cmd.bookingId);
-            List<BookingEvent> events = List.of(studentBooked, instructorBooked, aircraftBooked);
+            List<BookingEvent> events = new ArrayList<>(4);
+            if (hold.isPresent()) {
+                events.add(new BookingEvent.HoldReleased(entityId, cmd.bookingId, convertsHold));
+            }
+            events.addAll(List.of(studentBooked, instructorBooked, aircraftBooked));
             return effects().persistAll(events).thenReply(newState -> Done.done());
 
         }
 
     }
 
+    // Tentatively reserves the three participants for a booking with the
+    // hold's ID until the hold expires. Other bookings and holds can't use
+    // held participants in the meantime.
+    public Effect<Done> holdSlot(Command.HoldParticipants cmd) {
+        Instant now = Instant.now();
+        if (!currentState().isBookable(cmd.studentId, cmd.aircraftId, cmd.instructorId, cmd.holdId, now)) {
+            return effects().error("Cannot hold slot: one or more participants is unavailable.");
+        } else if (currentState().findHold(cmd.holdId).isPresent() || !currentState().findBooking(cmd.holdId).isEmpty()) {
+            return effects().error("Cannot hold slot: hold id already in use");
+        } else {
+            BookingEvent.ParticipantsHeld event = new BookingEvent.ParticipantsHeld(entityId, cmd.holdId,
+                    cmd.studentId, cmd.aircraftId, cmd.instructorId, now.plus(cmd.ttl));
+            return effects().persist(event).thenReply(newState -> Done.done());
+        }
+    }
+
+    // Called when the hold's timer fires. Holds that were already converted
+    // into a booking, or released otherwise, are gone and left alone.
+    public Effect<Done> expireHold(String holdId) {
+        if (currentState().findHold(holdId).isPresent()) {
+            return effects()
+                    .persist(new BookingEvent.HoldReleased(entityId, holdId, false))
+                    .thenReply(newState -> Done.done());
+        } else {
+            return effects().reply(Done.done());
+        }
+    }
+
     // NOTE: canceling a booking should produce 3
     // `ParticipantCanceled` events
     public Effect<Done> cancelBooking(String bookingId) {
@@ -84,6 +134,29 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
         }
     }
 
+    // Cancels a booking only if it belongs to the given participants, so a
+    // caller that reuses a booking ID can't cancel somebody else's booking.
+    // Unlike cancelBooking this undoes the booking completely: the three
+    // participants are marked available in the slot again, as they were
+    // before they were booked.
+    public Effect<Done> cancelReservation(Command.CancelReservation cmd) {
+        if (currentState().findBooking(cmd.bookingId).isEmpty()) {
+            return effects().error("Cannot cancel booking " + cmd.bookingId + " as booking does not exist.");
+        } else if (!currentState().isBookedBy(cmd.bookingId, cmd.studentId, cmd.aircraftId, cmd.instructorId)) {
+            return effects().error("Cannot cancel booking " + cmd.bookingId + " as it belongs to other participants.");
+        } else {
+            List<Participant> participants = currentState().findBooking(cmd.bookingId).stream()
+                    .map(Timeslot.Booking::participant)
+                    .toList();
+            List<BookingEvent> events = new ArrayList<>(participants.size() * 2);
+            participants.forEach(p -> events.add(new BookingEvent.ParticipantCanceled(entityId, p.id(),
+                    p.participantType(), cmd.bookingId)));
+            participants.forEach(p -> events.add(new BookingEvent.ParticipantMarkedAvailable(entityId, p.id(),
+                    p.participantType())));
+            return effects().persistAll(events).thenReply(newState -> Done.done());
+        }
+    }
+
     public ReadOnlyEffect<Timeslot> getSlot() {
         return effects().reply(currentState());
     }
@@ -105,6 +178,8 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
                 currentState().reserve(available);
             case BookingEvent.ParticipantUnmarkedAvailable unavailable ->
                 currentState().unreserve(unavailable);
+            case BookingEvent.ParticipantsHeld held -> currentState().hold(held);
+            case BookingEvent.HoldReleased released -> currentState().releaseHold(released.holdId());
         };
     }
 
@@ -119,5 +194,15 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
                 String studentId, String aircraftId, String instructorId, String bookingId)
                 implements Command {
         }
+
+        record CancelReservation(
+                String studentId, String aircraftId, String instructorId, String bookingId)
+                implements Command {
+        }
+
+        record HoldParticipants(
+                String studentId, String aircraftId, String instructorId, String holdId, Duration ttl)
+                implements Command {
+        }
     }
 }
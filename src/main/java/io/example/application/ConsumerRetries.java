@@ -0,0 +1,81 @@
+package io.example.application;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Retry policy and counters for SlotToParticipantConsumer, per service
+// instance. Which participant slots are parked is kept in ParkedEventsEntity.
+// Backoff sleeps on the consumer's thread, so while one event is retried no
+// other event is processed. A failing event holds up the consumer for the sum
+// of its backoffs before it is parked, see flight.participant-consumer.
+public class ConsumerRetries {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerRetries.class);
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Sleeper sleeper;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder parked = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    public ConsumerRetries(Config config) {
+        this(config, Thread::sleep);
+    }
+
+    ConsumerRetries(Config config, Sleeper sleeper) {
+        this.maxAttempts = config.getInt("max-attempts");
+        this.initialBackoff = config.getDuration("initial-backoff");
+        this.maxBackoff = config.getDuration("max-backoff");
+        this.sleeper = sleeper;
+    }
+
+    interface Sleeper {
+        void sleep(Duration duration) throws InterruptedException;
+    }
+
+    public record Stats(long retries, long parked, long replayed) {
+    }
+
+    public Stats stats() {
+        return new Stats(retries.sum(), parked.sum(), replayed.sum());
+    }
+
+    // Runs the call up to max-attempts times with exponential backoff and
+    // rethrows the last failure
+    public <T> T withRetries(String key, Supplier<T> call) {
+        Duration backoff = initialBackoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                logger.warn("Attempt {} for {} failed, retrying in {}", attempt, key, backoff, e);
+                try {
+                    sleeper.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    public void parked() {
+        parked.increment();
+    }
+
+    public void replayed(int count) {
+        replayed.add(count);
+    }
+}
@@ -0,0 +1,33 @@
+package io.example.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+
+// Target of the timer scheduled for every booking hold. Releases the hold
+// if it hasn't been converted into a booking by the time it expires.
+@ComponentId("hold-expiry")
+public class HoldExpiryAction extends TimedAction {
+
+    private final ComponentClient componentClient;
+
+    public HoldExpiryAction(ComponentClient componentClient) {
+        this.componentClient = componentClient;
+    }
+
+    public record ExpireHold(String slotId, String holdId) {
+    }
+
+    public static String timerName(String slotId, String holdId) {
+        return "hold-expiry-" + slotId + "-" + holdId;
+    }
+
+    public Effect expire(ExpireHold cmd) {
+        // Released holds are counted by HoldMetricsConsumer
+        componentClient
+                .forEventSourcedEntity(cmd.slotId())
+                .method(BookingSlotEntity::expireHold)
+                .invoke(cmd.holdId());
+        return effects().done();
+    }
+}
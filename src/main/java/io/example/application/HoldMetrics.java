@@ -0,0 +1,42 @@
+package io.example.application;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// In-process counters for booking holds, per service instance. Placed and
+// rejected holds are counted by the endpoint, conversions and expiries by
+// HoldMetricsConsumer from the HoldReleased events, as soon as a hold is
+// booked or released by its timer.
+public class HoldMetrics {
+
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public record Stats(long placed, long rejected, long converted, long expired, double conversionRate) {
+    }
+
+    public void holdPlaced() {
+        placed.increment();
+    }
+
+    public void holdRejected() {
+        rejected.increment();
+    }
+
+    public void holdReleased(boolean wasConverted) {
+        if (wasConverted) {
+            converted.increment();
+        } else {
+            expired.increment();
+        }
+    }
+
+    public Stats stats() {
+        long convertedCount = converted.sum();
+        long expiredCount = expired.sum();
+        long released = convertedCount + expiredCount;
+        return new Stats(placed.sum(), rejected.sum(), convertedCount, expiredCount,
+                released == 0 ? 0.0 : (double) convertedCount / released);
+    }
+}
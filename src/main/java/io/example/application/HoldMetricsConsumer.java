@@ -0,0 +1,31 @@
+package io.example.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.consumer.Consumer;
+import io.example.domain.BookingEvent;
+
+// Counts converted and expired holds from the booking slot events. A
+// conversion is seen when the booking is made, even if the booking is
+// canceled again before the hold's timer fires. Events may be delivered
+// more than once, so the counts are approximate.
+@ComponentId("hold-metrics-consumer")
+@Consume.FromEventSourcedEntity(BookingSlotEntity.class)
+public class HoldMetricsConsumer extends Consumer {
+
+    private final HoldMetrics holdMetrics;
+
+    public HoldMetricsConsumer(HoldMetrics holdMetrics) {
+        this.holdMetrics = holdMetrics;
+    }
+
+    public Effect onEvent(BookingEvent event) {
+        return switch (event) {
+            case BookingEvent.HoldReleased released -> {
+                holdMetrics.holdReleased(released.converted());
+                yield effects().done();
+            }
+            default -> effects().ignore();
+        };
+    }
+}
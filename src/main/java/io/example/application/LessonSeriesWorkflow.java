@@ -0,0 +1,233 @@
+package io.example.application;
+
+import static akka.javasdk.workflow.Workflow.RecoverStrategy.maxRetries;
+
+import akka.Done;
+import akka.javasdk.CommandException;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.workflow.Workflow;
+import akka.javasdk.workflow.WorkflowContext;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Books the same student, aircraft and instructor into several slots as one
+// unit. All slots are booked in parallel, each with the workflow ID as the
+// booking ID. If any slot can't be booked, the bookings that did succeed are
+// canceled again and their participants made available in those slots, so
+// the series is either booked completely or leaves the slots as they were.
+// A slot only counts as booked by the series if the booking with the series
+// ID is made up of the series' participants, so bookings that happen to use
+// the same ID are neither mistaken for the series' own nor canceled by it.
+@ComponentId("lesson-series")
+public class LessonSeriesWorkflow extends Workflow<LessonSeriesWorkflow.State> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LessonSeriesWorkflow.class);
+
+    private static final String BOOK_ALL = "book-all";
+    private static final String BOOKING_FAILED = "booking-failed";
+    private static final String COMPENSATE = "compensate";
+    private static final String FAILED = "failed";
+
+    private final String seriesId;
+    private final ComponentClient componentClient;
+
+    public LessonSeriesWorkflow(WorkflowContext context, ComponentClient componentClient) {
+        this.seriesId = context.workflowId();
+        this.componentClient = componentClient;
+    }
+
+    public enum Status {
+        BOOKING,
+        COMPENSATING,
+        CONFIRMED,
+        REJECTED,
+        // Compensation could not be completed, some slots may still be booked
+        FAILED;
+
+        public boolean isFinal() {
+            return this == CONFIRMED || this == REJECTED || this == FAILED;
+        }
+    }
+
+    public record State(
+            String studentId,
+            String aircraftId,
+            String instructorId,
+            List<String> slotIds,
+            // Slots booked by the series, null while unknown
+            List<String> bookedSlotIds,
+            Status status,
+            String reason) {
+
+        State withStatus(Status newStatus, String newReason) {
+            return new State(studentId, aircraftId, instructorId, slotIds, bookedSlotIds, newStatus, newReason);
+        }
+
+        State compensating(List<String> booked, String newReason) {
+            return new State(studentId, aircraftId, instructorId, slotIds, booked, Status.COMPENSATING, newReason);
+        }
+
+        // Slots that may hold a booking of the series
+        List<String> slotsToCancel() {
+            return bookedSlotIds != null ? bookedSlotIds : slotIds;
+        }
+    }
+
+    public record SlotOutcome(String slotId, boolean booked, String reason) {
+    }
+
+    public record BookingOutcomes(List<SlotOutcome> outcomes) {
+    }
+
+    public record SeriesResult(List<String> slotIds, Status status, String reason) {
+    }
+
+    public sealed interface Command {
+        record BookSeries(String studentId, String aircraftId, String instructorId, List<String> slotIds)
+                implements Command {
+        }
+    }
+
+    public Effect<Done> start(Command.BookSeries cmd) {
+        if (currentState() != null) {
+            return effects().error("Series " + seriesId + " already exists.");
+        } else if (cmd.slotIds() == null || cmd.slotIds().isEmpty()) {
+            return effects().error("Series must contain at least one slot.");
+        } else if (cmd.slotIds().stream().distinct().count() != cmd.slotIds().size()) {
+            return effects().error("Series contains the same slot more than once.");
+        }
+        State initial = new State(cmd.studentId(), cmd.aircraftId(), cmd.instructorId(),
+                List.copyOf(cmd.slotIds()), null, Status.BOOKING, "");
+        return effects()
+                .updateState(initial)
+                .transitionTo(BOOK_ALL)
+                .thenReply(Done.done());
+    }
+
+    public Effect<SeriesResult> getResult() {
+        if (currentState() == null) {
+            return effects().error("Series " + seriesId + " does not exist.");
+        }
+        State state = currentState();
+        return effects().reply(new SeriesResult(state.slotIds(), state.status(), state.reason()));
+    }
+
+    @Override
+    public WorkflowDef<State> definition() {
+        Step bookAll = step(BOOK_ALL)
+                .call(this::bookAllSlots)
+                .andThen(BookingOutcomes.class, result -> {
+                    List<SlotOutcome> failures = result.outcomes().stream().filter(o -> !o.booked()).toList();
+                    if (failures.isEmpty()) {
+                        logger.info("Series {} booked into {} slots", seriesId, result.outcomes().size());
+                        return effects().updateState(currentState().withStatus(Status.CONFIRMED, "")).end();
+                    }
+                    SlotOutcome failure = failures.getFirst();
+                    String reason = "Slot " + failure.slotId() + ": " + failure.reason();
+                    List<String> booked = result.outcomes().stream()
+                            .filter(SlotOutcome::booked)
+                            .map(SlotOutcome::slotId)
+                            .toList();
+                    logger.info("Series {} rejected, compensating. {}", seriesId, reason);
+                    return effects()
+                            .updateState(currentState().compensating(booked, reason))
+                            .transitionTo(COMPENSATE);
+                });
+
+        // If booking itself keeps failing we don't know which slots were
+        // booked, so compensation checks every slot of the series
+        Step bookingFailed = step(BOOKING_FAILED)
+                .call(Done::done)
+                .andThen(Done.class, done -> {
+                    logger.warn("Series {} could not be booked, compensating", seriesId);
+                    return effects()
+                            .updateState(currentState().compensating(null, "Slots could not be booked, please try again"))
+                            .transitionTo(COMPENSATE);
+                });
+
+        Step compensate = step(COMPENSATE)
+                .call(this::cancelAllSlots)
+                .andThen(Done.class, done -> effects()
+                        .updateState(currentState().withStatus(Status.REJECTED, currentState().reason()))
+                        .end());
+
+        Step failed = step(FAILED)
+                .call(Done::done)
+                .andThen(Done.class, done -> {
+                    logger.error("Series {} could not be compensated, slots {} need to be checked",
+                            seriesId, currentState().slotsToCancel());
+                    return effects()
+                            .updateState(currentState().withStatus(Status.FAILED, "Compensation failed"))
+                            .end();
+                });
+
+        return workflow()
+                .defaultStepTimeout(Duration.ofSeconds(30))
+                .addStep(bookAll, maxRetries(2).failoverTo(BOOKING_FAILED))
+                .addStep(bookingFailed)
+                .addStep(compensate, maxRetries(10).failoverTo(FAILED))
+                .addStep(failed);
+    }
+
+    private BookingOutcomes bookAllSlots() {
+        State state = currentState();
+        List<CompletableFuture<SlotOutcome>> outcomes = state.slotIds().stream()
+                .map(slotId -> bookSlot(slotId, state).toCompletableFuture())
+                .toList();
+        return new BookingOutcomes(outcomes.stream().map(CompletableFuture::join).toList());
+    }
+
+    private CompletionStage<SlotOutcome> bookSlot(String slotId, State state) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::bookSlot)
+                .invokeAsync(new BookingSlotEntity.Command.BookReservation(
+                        state.studentId(), state.aircraftId(), state.instructorId(), seriesId))
+                .thenApply(done -> new SlotOutcome(slotId, true, ""))
+                .exceptionallyCompose(error -> {
+                    if (!(unwrap(error) instanceof CommandException rejected)) {
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    // When the step is retried our own booking from the
+                    // previous attempt may already be in place
+                    return componentClient
+                            .forEventSourcedEntity(slotId)
+                            .method(BookingSlotEntity::getSlot)
+                            .invokeAsync()
+                            .thenApply(slot -> new SlotOutcome(slotId,
+                                    slot.isBookedBy(seriesId, state.studentId(), state.aircraftId(), state.instructorId()),
+                                    rejected.getMessage()));
+                });
+    }
+
+    private Done cancelAllSlots() {
+        State state = currentState();
+        BookingSlotEntity.Command.CancelReservation cancel = new BookingSlotEntity.Command.CancelReservation(
+                state.studentId(), state.aircraftId(), state.instructorId(), seriesId);
+        CompletableFuture<?>[] cancellations = state.slotsToCancel().stream()
+                .map(slotId -> componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::cancelReservation)
+                        .invokeAsync(cancel)
+                        // Slots that were never booked by the series, or whose
+                        // booking with the series ID belongs to somebody else,
+                        // reject the cancel, that's fine
+                        .exceptionallyCompose(error -> unwrap(error) instanceof CommandException
+                                ? CompletableFuture.completedFuture(Done.done())
+                                : CompletableFuture.failedFuture(error))
+                        .toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(cancellations).join();
+        return Done.done();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,141 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import akka.javasdk.keyvalueentity.KeyValueEntityContext;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant.ParticipantType;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Holds the booking events that SlotToParticipantConsumer could not apply
+// to a participant slot, in their original order, until they are replayed.
+// Keyed by the same {slotId}-{participantId} key as ParticipantSlotEntity.
+// This is the only record of which participant slots are parked, so the
+// consumer and the admin replay agree on it whichever node they run on.
+// Every parked event gets the next sequence number of its participant slot,
+// so a replay can name exactly the events it applied. The sequence is kept
+// when all events are removed, so numbers are never reused.
+@ComponentId("parked-participant-events")
+public class ParkedEventsEntity extends KeyValueEntity<ParkedEventsEntity.State> {
+
+    private final String entityId;
+
+    public ParkedEventsEntity(KeyValueEntityContext context) {
+        this.entityId = context.entityId();
+    }
+
+    public record State(String participantSlotId, List<ParkedEvent> events, long lastSequence) {
+    }
+
+    // Flat copy of a participant-related BookingEvent
+    public record ParkedEvent(
+            String eventType,
+            String slotId,
+            String participantId,
+            ParticipantType participantType,
+            String bookingId,
+            String error,
+            Instant parkedAt,
+            // Assigned by the entity when the event is parked
+            long sequence) {
+
+        public static ParkedEvent of(BookingEvent event, String error, Instant parkedAt) {
+            return switch (event) {
+                case BookingEvent.ParticipantMarkedAvailable evt -> new ParkedEvent("marked-available",
+                        evt.slotId(), evt.participantId(), evt.participantType(), "", error, parkedAt, 0);
+                case BookingEvent.ParticipantUnmarkedAvailable evt -> new ParkedEvent("unmarked-available",
+                        evt.slotId(), evt.participantId(), evt.participantType(), "", error, parkedAt, 0);
+                case BookingEvent.ParticipantBooked evt -> new ParkedEvent("booked",
+                        evt.slotId(), evt.participantId(), evt.participantType(), evt.bookingId(), error, parkedAt, 0);
+                case BookingEvent.ParticipantCanceled evt -> new ParkedEvent("canceled",
+                        evt.slotId(), evt.participantId(), evt.participantType(), evt.bookingId(), error, parkedAt, 0);
+                case BookingEvent.ParticipantsHeld ignored ->
+                        throw new IllegalArgumentException("Hold events are not applied to participant slots");
+                case BookingEvent.HoldReleased ignored ->
+                        throw new IllegalArgumentException("Hold events are not applied to participant slots");
+            };
+        }
+
+        public BookingEvent toBookingEvent() {
+            return switch (eventType) {
+                case "marked-available" -> new BookingEvent.ParticipantMarkedAvailable(slotId, participantId, participantType);
+                case "unmarked-available" -> new BookingEvent.ParticipantUnmarkedAvailable(slotId, participantId, participantType);
+                case "booked" -> new BookingEvent.ParticipantBooked(slotId, participantId, participantType, bookingId);
+                case "canceled" -> new BookingEvent.ParticipantCanceled(slotId, participantId, participantType, bookingId);
+                default -> throw new IllegalStateException("Unknown parked event type " + eventType);
+            };
+        }
+
+        ParkedEvent withSequence(long newSequence) {
+            return new ParkedEvent(eventType, slotId, participantId, participantType, bookingId, error, parkedAt,
+                    newSequence);
+        }
+
+        boolean isSameEvent(ParkedEvent other) {
+            return eventType.equals(other.eventType) && slotId.equals(other.slotId)
+                    && participantId.equals(other.participantId) && bookingId.equals(other.bookingId);
+        }
+    }
+
+    @Override
+    public State emptyState() {
+        return new State(entityId, List.of(), 0);
+    }
+
+    public Effect<Done> park(ParkedEvent event) {
+        List<ParkedEvent> events = currentState().events();
+        // The consumer may retry parking after a failure, don't park twice
+        if (!events.isEmpty() && events.getLast().isSameEvent(event)) {
+            return effects().reply(Done.done());
+        }
+        return effects()
+                .updateState(appended(event))
+                .thenReply(Done.done());
+    }
+
+    // Parks the event only if earlier events of this participant slot are
+    // still parked, so that it isn't applied ahead of them. Replies whether
+    // the event was parked.
+    public Effect<Boolean> parkIfAnyParked(ParkedEvent event) {
+        List<ParkedEvent> events = currentState().events();
+        if (events.isEmpty()) {
+            return effects().reply(false);
+        } else if (events.getLast().isSameEvent(event)) {
+            return effects().reply(true);
+        }
+        return effects()
+                .updateState(appended(event))
+                .thenReply(true);
+    }
+
+    public Effect<State> getParked() {
+        return effects().reply(currentState());
+    }
+
+    // Removes the events up to and including the given sequence number once
+    // they have been replayed and replies with the number of events still
+    // parked. Events parked in the meantime have higher numbers and are
+    // kept, and removing the same events twice, e.g. when a replay is
+    // retried, removes nothing more.
+    public Effect<Integer> removeReplayed(long lastReplayedSequence) {
+        List<ParkedEvent> remaining = currentState().events().stream()
+                .filter(e -> e.sequence() > lastReplayedSequence)
+                .toList();
+        if (remaining.size() == currentState().events().size()) {
+            return effects().reply(remaining.size());
+        }
+        return effects()
+                .updateState(new State(entityId, remaining, currentState().lastSequence()))
+                .thenReply(remaining.size());
+    }
+
+    private State appended(ParkedEvent event) {
+        long sequence = currentState().lastSequence() + 1;
+        List<ParkedEvent> updated = new ArrayList<>(currentState().events());
+        updated.add(event.withSequence(sequence));
+        return new State(entityId, updated, sequence);
+    }
+}
@@ -0,0 +1,44 @@
+package io.example.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.DeleteHandler;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import java.time.Instant;
+import java.util.List;
+
+// Lists every participant slot that has parked events, for the admin routes
+@ComponentId("view-parked-participant-events")
+public class ParkedEventsView extends View {
+
+    @Consume.FromKeyValueEntity(ParkedEventsEntity.class)
+    public static class ParkedEventsUpdater extends TableUpdater<ParkedRow> {
+
+        public Effect<ParkedRow> onUpdate(ParkedEventsEntity.State state) {
+            if (state.events().isEmpty()) {
+                return effects().deleteRow();
+            }
+            ParkedRow row = new ParkedRow(state.participantSlotId(), state.events().size(),
+                    state.events().getFirst().parkedAt(), state.events().getLast().error());
+            return effects().updateRow(row);
+        }
+
+        @DeleteHandler
+        public Effect<ParkedRow> onDelete() {
+            return effects().deleteRow();
+        }
+    }
+
+    public record ParkedRow(String participantSlotId, int parkedCount, Instant oldestParkedAt, String lastError) {
+    }
+
+    public record ParkedList(List<ParkedRow> entries) {
+    }
+
+    @Query("SELECT * AS entries FROM parked_participant_events ORDER BY oldestParkedAt")
+    public QueryEffect<ParkedList> getAll() {
+        return queryResult();
+    }
+}
@@ -14,6 +14,14 @@ public class ParticipantSlotEntity
 
     private static Logger logger = LoggerFactory.getLogger(ParticipantSlotEntity.class);
 
+    // Participant slots are keyed by a derived key made up of
+    // {slotId}-{participantId}
+    // We don't need the participant type here because the participant IDs
+    // should always be unique/UUIDs
+    public static String entityId(String slotId, String participantId) {
+        return slotId + "-" + participantId;
+    }
+
     public Effect<Done> unmarkAvailable(ParticipantSlotEntity.Commands.UnmarkAvailable unmark) {
         Event.UnmarkedAvailable event = new Event.UnmarkedAvailable(unmark.slotId, unmark.participantId, unmark.participantType);
         return effects()
@@ -42,6 +50,11 @@ public class ParticipantSlotEntity
                 .thenReply(newState -> Done.done());
     }
 
+    // Read-only no-op, used to load the entity ahead of traffic
+    public ReadOnlyEffect<Done> activate() {
+        return effects().reply(Done.done());
+    }
+
     record State(
             String slotId, String participantId, ParticipantType participantType, String status) {
     }
@@ -0,0 +1,296 @@
+package io.example.application;
+
+import static akka.javasdk.workflow.Workflow.RecoverStrategy.maxRetries;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.workflow.Workflow;
+import akka.javasdk.workflow.WorkflowContext;
+import io.example.application.ParticipantSlotsView.SlotList;
+import io.example.application.ParticipantSlotsView.SlotRow;
+import io.example.domain.Participant.ParticipantType;
+import io.example.domain.SlotIds;
+import io.example.domain.Timeslot;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Rebuilds the participant slot projection (ParticipantSlotEntity and, through
+// it, ParticipantSlotsView) for a range of hourly slots. Rather than replaying
+// every BookingSlotEntity event through SlotToParticipantConsumer one blocking
+// call at a time, each batch of slots is read in parallel and the participant
+// rows are reconciled against the slot's current state. Only rows that differ
+// are rewritten unless a forced rebuild is requested.
+//
+// SlotToParticipantConsumer keeps writing rows while the rebuild runs. If it
+// applies an event between the rebuild's read of a slot and its writes, the
+// rebuild would overwrite the newer row with the older snapshot, and no later
+// event corrects it. So after writing, the slot is read again and the rows of
+// participants whose state changed since the snapshot are written again,
+// until the slot no longer changes between two reads.
+@ComponentId("participant-slots-rebuild")
+public class ParticipantSlotsRebuildWorkflow extends Workflow<ParticipantSlotsRebuildWorkflow.State> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticipantSlotsRebuildWorkflow.class);
+
+    private static final String REBUILD_BATCH = "rebuild-batch";
+    private static final String FAILED = "failed";
+    // Reads of a slot that keeps changing before the batch is failed and retried
+    private static final int MAX_SETTLE_PASSES = 5;
+
+    private final String workflowId;
+    private final ComponentClient componentClient;
+
+    public ParticipantSlotsRebuildWorkflow(WorkflowContext context, ComponentClient componentClient) {
+        this.workflowId = context.workflowId();
+        this.componentClient = componentClient;
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record State(
+            String fromSlotId,
+            String toSlotId,
+            String nextSlotId,
+            int batchSize,
+            boolean force,
+            long slotsProcessed,
+            long rowsRewritten,
+            Instant startedAt,
+            Instant updatedAt,
+            Status status) {
+
+        State withBatch(BatchResult result, Instant now) {
+            boolean complete = result.nextSlotId().compareTo(toSlotId) >= 0;
+            return new State(fromSlotId, toSlotId, result.nextSlotId(), batchSize, force,
+                    slotsProcessed + result.slotsProcessed(), rowsRewritten + result.rowsRewritten(),
+                    startedAt, now, complete ? Status.COMPLETED : Status.RUNNING);
+        }
+
+        State failed(Instant now) {
+            return new State(fromSlotId, toSlotId, nextSlotId, batchSize, force, slotsProcessed,
+                    rowsRewritten, startedAt, now, Status.FAILED);
+        }
+    }
+
+    public record BatchResult(String nextSlotId, int slotsProcessed, int rowsRewritten) {
+    }
+
+    public record RebuildStatus(
+            String fromSlotId,
+            String toSlotId,
+            String nextSlotId,
+            long slotsProcessed,
+            long rowsRewritten,
+            double slotsPerSecond,
+            Status status) {
+    }
+
+    public sealed interface Command {
+        // Slot IDs follow the yyyy-MM-dd-HH convention, toSlotId is exclusive
+        record StartRebuild(String fromSlotId, String toSlotId, int batchSize, boolean force)
+                implements Command {
+        }
+    }
+
+    public Effect<Done> start(Command.StartRebuild cmd) {
+        if (currentState() != null && currentState().status() == Status.RUNNING) {
+            return effects().error("Rebuild " + workflowId + " is already running.");
+        }
+        Instant now = Instant.now();
+        State initial = new State(cmd.fromSlotId(), cmd.toSlotId(), cmd.fromSlotId(), cmd.batchSize(),
+                cmd.force(), 0, 0, now, now, Status.RUNNING);
+        logger.info("Starting participant slot rebuild {} for slots {} to {}",
+                workflowId, cmd.fromSlotId(), cmd.toSlotId());
+        return effects()
+                .updateState(initial)
+                .transitionTo(REBUILD_BATCH)
+                .thenReply(Done.done());
+    }
+
+    public Effect<RebuildStatus> getStatus() {
+        if (currentState() == null) {
+            return effects().error("Rebuild " + workflowId + " does not exist.");
+        }
+        State state = currentState();
+        double seconds = Math.max(1, Duration.between(state.startedAt(), state.updatedAt()).toMillis()) / 1000.0;
+        return effects().reply(new RebuildStatus(state.fromSlotId(), state.toSlotId(), state.nextSlotId(),
+                state.slotsProcessed(), state.rowsRewritten(), state.slotsProcessed() / seconds, state.status()));
+    }
+
+    @Override
+    public WorkflowDef<State> definition() {
+        Step rebuildBatch = step(REBUILD_BATCH)
+                .call(this::rebuildNextBatch)
+                .andThen(BatchResult.class, result -> {
+                    State updated = currentState().withBatch(result, Instant.now());
+                    if (updated.status() == Status.COMPLETED) {
+                        logger.info("Participant slot rebuild {} completed: {} slots, {} rows rewritten",
+                                workflowId, updated.slotsProcessed(), updated.rowsRewritten());
+                        return effects().updateState(updated).end();
+                    }
+                    return effects().updateState(updated).transitionTo(REBUILD_BATCH);
+                });
+
+        Step failed = step(FAILED)
+                .call(Done::done)
+                .andThen(Done.class, done -> {
+                    logger.warn("Participant slot rebuild {} failed at slot {}",
+                            workflowId, currentState().nextSlotId());
+                    return effects().updateState(currentState().failed(Instant.now())).end();
+                });
+
+        return workflow()
+                .defaultStepTimeout(Duration.ofMinutes(1))
+                .defaultStepRecovery(maxRetries(3).failoverTo(FAILED))
+                .addStep(rebuildBatch)
+                .addStep(failed);
+    }
+
+    // Reconciles all slots of the next batch in parallel
+    private BatchResult rebuildNextBatch() {
+        State state = currentState();
+        List<String> batch = SlotIds.hourly(state.nextSlotId(), state.toSlotId(), state.batchSize());
+        List<CompletableFuture<Integer>> reconciled = batch.stream()
+                .map(slotId -> reconcileSlot(slotId, state.force()).toCompletableFuture())
+                .toList();
+        int rowsRewritten = reconciled.stream().mapToInt(CompletableFuture::join).sum();
+        String nextSlotId = batch.isEmpty() ? state.toSlotId() : SlotIds.next(batch.getLast());
+        return new BatchResult(nextSlotId, batch.size(), rowsRewritten);
+    }
+
+    private CompletionStage<Integer> reconcileSlot(String slotId, boolean force) {
+        CompletionStage<Timeslot> timeslot = componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync();
+        CompletionStage<SlotList> rows = componentClient
+                .forView()
+                .method(ParticipantSlotsView::getSlotsBySlot)
+                .invokeAsync(slotId);
+
+        return timeslot.thenCompose(slot -> rows.thenCompose(slotList -> {
+            Reconciliation reconciliation = reconcile(slotId, slot, slotList.slots(), force);
+            return repair(reconciliation)
+                    .thenCompose(done -> settle(slotId, slot, 1))
+                    .thenApply(rewritten -> reconciliation.size() + rewritten);
+        }));
+    }
+
+    // Reads the slot again after its rows were written. Rows of participants
+    // whose state changed since the previous read may have been overwritten
+    // with the older state, so they are written again from the new state.
+    private CompletionStage<Integer> settle(String slotId, Timeslot written, int pass) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync()
+                .thenCompose(slot -> {
+                    Reconciliation changes = changedSince(slotId, written, slot);
+                    if (changes.size() == 0) {
+                        return CompletableFuture.completedFuture(0);
+                    } else if (pass >= MAX_SETTLE_PASSES) {
+                        throw new IllegalStateException("Slot " + slotId + " kept changing during the rebuild");
+                    }
+                    logger.debug("Slot {} changed during the rebuild, rewriting {} rows", slotId, changes.size());
+                    return repair(changes)
+                            .thenCompose(done -> settle(slotId, slot, pass + 1))
+                            .thenApply(rewritten -> changes.size() + rewritten);
+                });
+    }
+
+    private CompletionStage<Void> repair(Reconciliation reconciliation) {
+        Stream<CompletionStage<Done>> repairs = Stream.concat(
+                reconciliation.writes().stream().map(this::write),
+                reconciliation.removals().stream().map(this::remove));
+        return CompletableFuture.allOf(repairs.map(CompletionStage::toCompletableFuture).toArray(CompletableFuture[]::new));
+    }
+
+    // Rows to write so that they match the slot (missing or stale rows, or
+    // every row when forced) and orphaned rows to remove
+    record Reconciliation(List<SlotRow> writes, List<SlotRow> removals) {
+
+        int size() {
+            return writes.size() + removals.size();
+        }
+    }
+
+    // Compares the rows the slot implies with the rows currently in the view.
+    // Participant slots are keyed by slot and participant ID only, so if the
+    // same ID appears as two participant types in one slot only one row can
+    // be kept. The booked row wins in that case.
+    static Reconciliation reconcile(String slotId, Timeslot slot, List<SlotRow> actualRows, boolean force) {
+        Map<String, SlotRow> expected = expectedRows(slotId, slot);
+        Map<String, SlotRow> actual = actualRows.stream()
+                .collect(Collectors.toMap(SlotRow::participantId, Function.identity(), (a, b) -> a));
+
+        List<SlotRow> writes = expected.values().stream()
+                .filter(row -> force || !row.equals(actual.get(row.participantId())))
+                .toList();
+        List<SlotRow> removals = actual.values().stream()
+                .filter(row -> !expected.containsKey(row.participantId()))
+                .toList();
+        return new Reconciliation(writes, removals);
+    }
+
+    // Rows to write and remove to bring rows that match the earlier state of
+    // a slot up to date with its later state
+    static Reconciliation changedSince(String slotId, Timeslot earlier, Timeslot later) {
+        return reconcile(slotId, later, List.copyOf(expectedRows(slotId, earlier).values()), false);
+    }
+
+    // The rows the slot implies, by participant ID
+    private static Map<String, SlotRow> expectedRows(String slotId, Timeslot slot) {
+        return Stream.concat(
+                        slot.available().stream().map(p -> new SlotRow(slotId, p.id(),
+                                p.participantType().toString(), "", ParticipantSlotsView.SlotStatus.AVAILABLE)),
+                        slot.bookings().stream().map(b -> new SlotRow(slotId, b.participant().id(),
+                                b.participant().participantType().toString(), b.bookingId(), ParticipantSlotsView.SlotStatus.BOOKED)))
+                .collect(Collectors.toMap(SlotRow::participantId, Function.identity(), (a, b) -> {
+                    logger.warn("Slot {} has more than one entry for participant {}: {} and {}",
+                            slotId, a.participantId(), a, b);
+                    return a.status().equals(ParticipantSlotsView.SlotStatus.BOOKED) ? a : b;
+                }));
+    }
+
+    private CompletionStage<Done> write(SlotRow row) {
+        var entity = componentClient.forEventSourcedEntity(ParticipantSlotEntity.entityId(row.slotId(), row.participantId()));
+        ParticipantType participantType = ParticipantType.valueOf(row.participantType());
+        if (row.status().equals(ParticipantSlotsView.SlotStatus.BOOKED)) {
+            return entity
+                    .method(ParticipantSlotEntity::book)
+                    .invokeAsync(new ParticipantSlotEntity.Commands.Book(row.slotId(), row.participantId(), participantType, row.bookingId()));
+        } else {
+            return entity
+                    .method(ParticipantSlotEntity::markAvailable)
+                    .invokeAsync(new ParticipantSlotEntity.Commands.MarkAvailable(row.slotId(), row.participantId(), participantType));
+        }
+    }
+
+    private CompletionStage<Done> remove(SlotRow row) {
+        var entity = componentClient.forEventSourcedEntity(ParticipantSlotEntity.entityId(row.slotId(), row.participantId()));
+        ParticipantType participantType = ParticipantType.valueOf(row.participantType());
+        if (row.status().equals(ParticipantSlotsView.SlotStatus.BOOKED)) {
+            return entity
+                    .method(ParticipantSlotEntity::cancel)
+                    .invokeAsync(new ParticipantSlotEntity.Commands.Cancel(row.slotId(), row.participantId(), participantType, row.bookingId()));
+        } else {
+            return entity
+                    .method(ParticipantSlotEntity::unmarkAvailable)
+                    .invokeAsync(new ParticipantSlotEntity.Commands.UnmarkAvailable(row.slotId(), row.participantId(), participantType));
+        }
+    }
+}
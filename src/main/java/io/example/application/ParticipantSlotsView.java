@@ -61,6 +61,13 @@ public class ParticipantSlotsView extends View {
         return queryResult();
     }
 
+    // All participant rows for a single slot, used to reconcile the view
+    // against the slot's own state
+    @Query("SELECT * AS slots FROM slots_by_participants WHERE slotId = :slotId")
+    public QueryEffect<SlotList> getSlotsBySlot(String slotId) {
+        return queryResult();
+    }
+
     @Query("SELECT * AS slots FROM slots_by_participants WHERE participantId = :participantId AND status = :status")
     public QueryEffect<SlotList> getSlotsByParticipantAndStatus(ParticipantStatusInput input) {
         return queryResult();
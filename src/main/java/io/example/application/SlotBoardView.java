@@ -0,0 +1,94 @@
+package io.example.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import io.example.domain.BookingEvent;
+import io.example.domain.SlotRange;
+import java.util.ArrayList;
+import java.util.List;
+
+// One row per slot with its available participants and bookings, built from
+// the booking slot event stream. Lets schedulers load a day or week grid in a
+// single query instead of reading every slot entity.
+@ComponentId("view-slot-board")
+public class SlotBoardView extends View {
+
+    @Consume.FromEventSourcedEntity(BookingSlotEntity.class)
+    public static class SlotBoardUpdater extends TableUpdater<BoardRow> {
+
+        public Effect<BoardRow> onEvent(BookingEvent event) {
+            return switch (event) {
+                case BookingEvent.ParticipantMarkedAvailable available -> effects().updateRow(
+                        currentRow(available.slotId()).withAvailable(
+                                new BoardParticipant(available.participantId(), available.participantType().toString())));
+                case BookingEvent.ParticipantUnmarkedAvailable unavailable -> effects().updateRow(
+                        currentRow(unavailable.slotId()).withoutAvailable(
+                                new BoardParticipant(unavailable.participantId(), unavailable.participantType().toString())));
+                case BookingEvent.ParticipantBooked booked -> effects().updateRow(
+                        currentRow(booked.slotId())
+                                .withoutAvailable(new BoardParticipant(booked.participantId(), booked.participantType().toString()))
+                                .withBooking(new BoardBooking(booked.bookingId(), booked.participantId(), booked.participantType().toString())));
+                // Canceled participants are not returned to the available list
+                case BookingEvent.ParticipantCanceled canceled -> effects().updateRow(
+                        currentRow(canceled.slotId()).withoutBooking(
+                                new BoardBooking(canceled.bookingId(), canceled.participantId(), canceled.participantType().toString())));
+                // Holds are not shown on the board
+                case BookingEvent.ParticipantsHeld ignored -> effects().ignore();
+                case BookingEvent.HoldReleased ignored -> effects().ignore();
+            };
+        }
+
+        private BoardRow currentRow(String slotId) {
+            BoardRow row = rowState();
+            return row != null ? row : new BoardRow(slotId, List.of(), List.of());
+        }
+    }
+
+    public record BoardParticipant(String participantId, String participantType) {
+    }
+
+    public record BoardBooking(String bookingId, String participantId, String participantType) {
+    }
+
+    // Participants are matched on ID and type, like in Timeslot, so the same
+    // ID can be listed once per participant type
+    public record BoardRow(String slotId, List<BoardParticipant> available, List<BoardBooking> bookings) {
+
+        BoardRow withAvailable(BoardParticipant participant) {
+            if (available.contains(participant)) {
+                return this;
+            }
+            List<BoardParticipant> updated = new ArrayList<>(available);
+            updated.add(participant);
+            return new BoardRow(slotId, updated, bookings);
+        }
+
+        BoardRow withoutAvailable(BoardParticipant participant) {
+            return new BoardRow(slotId, available.stream().filter(p -> !p.equals(participant)).toList(), bookings);
+        }
+
+        BoardRow withBooking(BoardBooking booking) {
+            if (bookings.contains(booking)) {
+                return this;
+            }
+            List<BoardBooking> updated = new ArrayList<>(bookings);
+            updated.add(booking);
+            return new BoardRow(slotId, available, updated);
+        }
+
+        BoardRow withoutBooking(BoardBooking booking) {
+            return new BoardRow(slotId, available, bookings.stream().filter(b -> !b.equals(booking)).toList());
+        }
+    }
+
+    public record BoardList(List<BoardRow> slots) {
+    }
+
+    @Query("SELECT * AS slots FROM slot_board WHERE slotId >= :fromSlotId AND slotId < :toSlotId ORDER BY slotId")
+    public QueryEffect<BoardList> getBoardInRange(SlotRange range) {
+        return queryResult();
+    }
+}
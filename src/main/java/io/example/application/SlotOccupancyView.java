@@ -0,0 +1,162 @@
+package io.example.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant.ParticipantType;
+import io.example.domain.SlotRange;
+import java.util.ArrayList;
+import java.util.List;
+
+// Aggregate counters per slot, maintained directly from the booking slot
+// event stream. This lets dashboards load a whole day or week of slot
+// occupancy in a single query instead of reading every slot entity.
+@ComponentId("view-slot-occupancy")
+public class SlotOccupancyView extends View {
+
+    @Consume.FromEventSourcedEntity(BookingSlotEntity.class)
+    public static class SlotOccupancyUpdater extends TableUpdater<OccupancyRow> {
+
+        public Effect<OccupancyRow> onEvent(BookingEvent event) {
+            OccupancyRow row = currentRow(event);
+            return switch (event) {
+                case BookingEvent.ParticipantMarkedAvailable available ->
+                        effects().updateRow(row.withAvailable(available.participantType(), available.participantId()));
+                case BookingEvent.ParticipantUnmarkedAvailable unavailable ->
+                        effects().updateRow(row.withoutAvailable(unavailable.participantType(), unavailable.participantId()));
+                // A booking moves the participant out of the available pool
+                case BookingEvent.ParticipantBooked booked -> effects().updateRow(row
+                        .withoutAvailable(booked.participantType(), booked.participantId())
+                        .withBooking(booked.bookingId()));
+                // Canceled participants are not returned to the available pool
+                case BookingEvent.ParticipantCanceled canceled ->
+                        effects().updateRow(row.withoutBooking(canceled.bookingId()));
+                case BookingEvent.ParticipantsHeld held -> effects().updateRow(row.withHold(held.holdId()));
+                case BookingEvent.HoldReleased released -> effects().updateRow(row.withoutHold(released.holdId()));
+            };
+        }
+
+        private OccupancyRow currentRow(BookingEvent event) {
+            OccupancyRow row = rowState();
+            return row != null ? row : OccupancyRow.empty(slotId(event));
+        }
+
+        private String slotId(BookingEvent event) {
+            return switch (event) {
+                case BookingEvent.ParticipantMarkedAvailable evt -> evt.slotId();
+                case BookingEvent.ParticipantUnmarkedAvailable evt -> evt.slotId();
+                case BookingEvent.ParticipantBooked evt -> evt.slotId();
+                case BookingEvent.ParticipantCanceled evt -> evt.slotId();
+                case BookingEvent.ParticipantsHeld evt -> evt.slotId();
+                case BookingEvent.HoldReleased evt -> evt.slotId();
+            };
+        }
+    }
+
+    // The counters are derived from the ID lists, so events that are applied
+    // more than once (e.g. repeated availability events in older journals)
+    // can't make them drift
+    public record OccupancyRow(
+            String slotId,
+            int availableStudents,
+            int availableInstructors,
+            int availableAircraft,
+            int bookings,
+            int holds,
+            List<String> availableStudentIds,
+            List<String> availableInstructorIds,
+            List<String> availableAircraftIds,
+            List<String> bookingIds,
+            List<String> holdIds) {
+
+        static OccupancyRow empty(String slotId) {
+            return of(slotId, List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+
+        static OccupancyRow of(String slotId, List<String> students, List<String> instructors,
+                               List<String> aircraft, List<String> bookingIds, List<String> holdIds) {
+            return new OccupancyRow(slotId, students.size(), instructors.size(), aircraft.size(),
+                    bookingIds.size(), holdIds.size(), students, instructors, aircraft, bookingIds, holdIds);
+        }
+
+        OccupancyRow withAvailable(ParticipantType participantType, String participantId) {
+            return withAvailableIds(participantType, with(availableIds(participantType), participantId));
+        }
+
+        OccupancyRow withoutAvailable(ParticipantType participantType, String participantId) {
+            return withAvailableIds(participantType, without(availableIds(participantType), participantId));
+        }
+
+        OccupancyRow withBooking(String bookingId) {
+            return of(slotId, availableStudentIds, availableInstructorIds, availableAircraftIds,
+                    with(bookingIds, bookingId), holdIds);
+        }
+
+        OccupancyRow withoutBooking(String bookingId) {
+            return of(slotId, availableStudentIds, availableInstructorIds, availableAircraftIds,
+                    without(bookingIds, bookingId), holdIds);
+        }
+
+        OccupancyRow withHold(String holdId) {
+            return of(slotId, availableStudentIds, availableInstructorIds, availableAircraftIds,
+                    bookingIds, with(holdIds, holdId));
+        }
+
+        OccupancyRow withoutHold(String holdId) {
+            return of(slotId, availableStudentIds, availableInstructorIds, availableAircraftIds,
+                    bookingIds, without(holdIds, holdId));
+        }
+
+        private List<String> availableIds(ParticipantType participantType) {
+            return switch (participantType) {
+                case STUDENT -> availableStudentIds;
+                case INSTRUCTOR -> availableInstructorIds;
+                case AIRCRAFT -> availableAircraftIds;
+            };
+        }
+
+        private OccupancyRow withAvailableIds(ParticipantType participantType, List<String> ids) {
+            return switch (participantType) {
+                case STUDENT -> of(slotId, ids, availableInstructorIds, availableAircraftIds, bookingIds, holdIds);
+                case INSTRUCTOR -> of(slotId, availableStudentIds, ids, availableAircraftIds, bookingIds, holdIds);
+                case AIRCRAFT -> of(slotId, availableStudentIds, availableInstructorIds, ids, bookingIds, holdIds);
+            };
+        }
+
+        private static List<String> with(List<String> ids, String id) {
+            if (ids.contains(id)) {
+                return ids;
+            }
+            List<String> updated = new ArrayList<>(ids);
+            updated.add(id);
+            return updated;
+        }
+
+        private static List<String> without(List<String> ids, String id) {
+            return ids.stream().filter(existing -> !existing.equals(id)).toList();
+        }
+    }
+
+    // The counters of one slot, as returned by the query. The ID lists only
+    // serve to keep the counters exact and are not returned.
+    public record SlotOccupancy(
+            String slotId,
+            int availableStudents,
+            int availableInstructors,
+            int availableAircraft,
+            int bookings,
+            int holds) {
+    }
+
+    public record OccupancyList(List<SlotOccupancy> slots) {
+    }
+
+    @Query("SELECT (slotId, availableStudents, availableInstructors, availableAircraft, bookings, holds) AS slots " +
+            "FROM slot_occupancy WHERE slotId >= :fromSlotId AND slotId < :toSlotId ORDER BY slotId")
+    public QueryEffect<OccupancyList> getOccupancyInRange(SlotRange range) {
+        return queryResult();
+    }
+}
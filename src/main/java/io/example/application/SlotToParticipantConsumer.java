@@ -1,10 +1,12 @@
 package io.example.application;
 
+import akka.Done;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.Consume;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
 import io.example.domain.BookingEvent;
+import java.time.Instant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,53 +18,100 @@ import org.slf4j.LoggerFactory;
 public class SlotToParticipantConsumer extends Consumer {
 
     private final ComponentClient client;
+    private final ConsumerRetries retries;
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    public SlotToParticipantConsumer(ComponentClient client) {
+    public SlotToParticipantConsumer(ComponentClient client, ConsumerRetries retries) {
         this.client = client;
+        this.retries = retries;
     }
 
+    // A participant slot that keeps failing is parked so that the events of
+    // all other participant slots keep flowing. Until then its retries hold
+    // up the whole consumer, for at most the sum of the backoffs configured
+    // in flight.participant-consumer. Later events for a parked participant
+    // slot are parked behind it to keep their order. Whether a participant
+    // slot is parked is read from ParkedEventsEntity for every event, so it
+    // survives restarts and replays made from any node.
     public Effect onEvent(BookingEvent event) {
-        String id = participantSlotId(event);
+        return switch(event) {
+            // Holds don't change a participant's slot status
+            case BookingEvent.ParticipantsHeld ignored -> effects().ignore();
+            case BookingEvent.HoldReleased ignored -> effects().ignore();
+            default -> {
+                String key = participantSlotId(event);
+                if (parkBehindEarlierEvents(key, event)) {
+                    retries.parked();
+                } else {
+                    try {
+                        retries.withRetries(key, () -> applyToParticipantSlot(client, event));
+                    } catch (RuntimeException e) {
+                        logger.error("Parking event {} for {} after repeated failures", event, key, e);
+                        park(key, event, e.getMessage());
+                    }
+                }
+                yield effects().done();
+            }
+        };
+    }
+
+    // Turns a booking event into the matching participant slot command. Also
+    // used to replay parked events.
+    public static Done applyToParticipantSlot(ComponentClient client, BookingEvent event) {
         return switch(event) {
             case BookingEvent.ParticipantBooked booked -> {
-                client.forEventSourcedEntity(id)
+                client.forEventSourcedEntity(ParticipantSlotEntity.entityId(booked.slotId(), booked.participantId()))
                         .method(ParticipantSlotEntity::book)
                         .invoke(new ParticipantSlotEntity.Commands.Book(booked.slotId(), booked.participantId(), booked.participantType(), booked.bookingId()));
-                yield effects().done();
+                yield Done.done();
             }
             case BookingEvent.ParticipantCanceled cancelled -> {
-                client.forEventSourcedEntity(id)
+                client.forEventSourcedEntity(ParticipantSlotEntity.entityId(cancelled.slotId(), cancelled.participantId()))
                         .method(ParticipantSlotEntity::cancel)
                         .invoke(new ParticipantSlotEntity.Commands.Cancel(cancelled.slotId(), cancelled.participantId(), cancelled.participantType(), cancelled.bookingId()));
-                yield effects().done();
+                yield Done.done();
             }
             case BookingEvent.ParticipantMarkedAvailable available -> {
-                client.forEventSourcedEntity(id)
+                client.forEventSourcedEntity(ParticipantSlotEntity.entityId(available.slotId(), available.participantId()))
                         .method(ParticipantSlotEntity::markAvailable)
                         .invoke(new ParticipantSlotEntity.Commands.MarkAvailable(available.slotId(), available.participantId(), available.participantType()));
-                yield effects().done();
+                yield Done.done();
             }
             case BookingEvent.ParticipantUnmarkedAvailable unavailable -> {
-                client.forEventSourcedEntity(id)
+                client.forEventSourcedEntity(ParticipantSlotEntity.entityId(unavailable.slotId(), unavailable.participantId()))
                         .method(ParticipantSlotEntity::unmarkAvailable)
                         .invoke(new ParticipantSlotEntity.Commands.UnmarkAvailable(unavailable.slotId(), unavailable.participantId(), unavailable.participantType()));
-                yield effects().done();
+                yield Done.done();
             }
+            case BookingEvent.ParticipantsHeld ignored -> Done.done();
+            case BookingEvent.HoldReleased ignored -> Done.done();
         };
     }
 
-    // Participant slots are keyed by a derived key made up of
-    // {slotId}-{participantId}
-    // We don't need the participant type here because the participant IDs
-    // should always be unique/UUIDs
-    private String participantSlotId(BookingEvent event) {
+    // If parking fails too the exception is propagated, so the event is
+    // redelivered rather than lost
+    private void park(String key, BookingEvent event, String error) {
+        client.forKeyValueEntity(key)
+                .method(ParkedEventsEntity::park)
+                .invoke(ParkedEventsEntity.ParkedEvent.of(event, error, Instant.now()));
+        retries.parked();
+    }
+
+    private boolean parkBehindEarlierEvents(String key, BookingEvent event) {
+        return client.forKeyValueEntity(key)
+                .method(ParkedEventsEntity::parkIfAnyParked)
+                .invoke(ParkedEventsEntity.ParkedEvent.of(event,
+                        "Parked behind an earlier event for this participant slot", Instant.now()));
+    }
+
+    private static String participantSlotId(BookingEvent event) {
         return switch (event) {
-            case BookingEvent.ParticipantBooked evt -> evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantUnmarkedAvailable evt ->
-                evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantMarkedAvailable evt -> evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantCanceled evt -> evt.slotId() + "-" + evt.participantId();
+            case BookingEvent.ParticipantBooked evt -> ParticipantSlotEntity.entityId(evt.slotId(), evt.participantId());
+            case BookingEvent.ParticipantUnmarkedAvailable evt -> ParticipantSlotEntity.entityId(evt.slotId(), evt.participantId());
+            case BookingEvent.ParticipantMarkedAvailable evt -> ParticipantSlotEntity.entityId(evt.slotId(), evt.participantId());
+            case BookingEvent.ParticipantCanceled evt -> ParticipantSlotEntity.entityId(evt.slotId(), evt.participantId());
+            case BookingEvent.ParticipantsHeld evt -> throw new IllegalArgumentException("Hold events have no participant slot");
+            case BookingEvent.HoldReleased evt -> throw new IllegalArgumentException("Hold events have no participant slot");
         };
     }
 }
@@ -0,0 +1,183 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.client.ComponentClient;
+import com.typesafe.config.Config;
+import io.example.domain.Participant;
+import io.example.domain.SlotIds;
+import io.example.domain.Timeslot;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Loads the BookingSlotEntity of every upcoming hourly slot, and the
+// ParticipantSlotEntity of each participant in it, so that the first real
+// requests after a deploy or rebalance don't pay for event replay. Slots are
+// read first and their participant slots activated afterwards, with at most
+// `parallelism` entity calls in flight to avoid competing with live traffic.
+// Component calls are routed to wherever the entity runs, so a warm-up on
+// any node loads the slots across the whole cluster.
+public class SlotWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotWarmup.class);
+
+    private final ComponentClient componentClient;
+    private final boolean enabled;
+    private final int hours;
+    private final int parallelism;
+    private final ZoneId zone;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<Stats> lastRun = new AtomicReference<>();
+
+    public SlotWarmup(ComponentClient componentClient, Config config) {
+        this.componentClient = componentClient;
+        this.enabled = config.getBoolean("enabled");
+        this.hours = config.getInt("hours");
+        this.parallelism = config.getInt("parallelism");
+        this.zone = config.getString("zone").isEmpty() ? ZoneId.systemDefault() : ZoneId.of(config.getString("zone"));
+        if (hours < 1) {
+            throw new IllegalArgumentException("flight.warmup.hours must be at least 1, was " + hours);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("flight.warmup.parallelism must be at least 1, was " + parallelism);
+        }
+    }
+
+    // Each slot is read twice in a row. The first read pays for loading the
+    // entity if it isn't running yet, which is what the first request for
+    // the slot pays without warm-up. The second read is what requests pay
+    // once the slot is warm. Both are means over the slots read.
+    public record Stats(
+            int slots,
+            long participants,
+            long failures,
+            long durationMillis,
+            long firstReadMicros,
+            long secondReadMicros) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Stats lastRun() {
+        return lastRun.get();
+    }
+
+    // Starts warming the next configured hours of slots in the background.
+    // Returns false if a warm-up is already in progress.
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        LocalDateTime currentHour = LocalDateTime.now(zone).truncatedTo(ChronoUnit.HOURS);
+        List<String> slotIds = SlotIds.hourly(SlotIds.of(currentHour), SlotIds.of(currentHour.plusHours(hours)), hours);
+        long started = System.nanoTime();
+        Run run = new Run();
+
+        logger.info("Warming up {} slots from {} with parallelism {}", slotIds.size(), SlotIds.of(currentHour), parallelism);
+        inBatches(slotIds, 0, slotId -> warmSlot(slotId, run))
+                .thenCompose(done -> inBatches(List.copyOf(run.participantSlotIds), 0,
+                        participantSlotId -> activateParticipantSlot(participantSlotId, run)))
+                .whenComplete((done, error) -> {
+                    Stats stats = run.stats(slotIds.size(), Duration.ofNanos(System.nanoTime() - started));
+                    lastRun.set(stats);
+                    running.set(false);
+                    logger.info("Warm-up finished: {}", stats);
+                });
+        return true;
+    }
+
+    // Counters of one warm-up run
+    private static final class Run {
+        private final LongAdder slotsRead = new LongAdder();
+        private final LongAdder firstReadNanos = new LongAdder();
+        private final LongAdder secondReadNanos = new LongAdder();
+        private final LongAdder participants = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final ConcurrentLinkedQueue<String> participantSlotIds = new ConcurrentLinkedQueue<>();
+
+        Stats stats(int slots, Duration duration) {
+            long read = Math.max(1, slotsRead.sum());
+            return new Stats(slots, participants.sum(), failures.sum(), duration.toMillis(),
+                    firstReadNanos.sum() / read / 1_000, secondReadNanos.sum() / read / 1_000);
+        }
+    }
+
+    // Runs the warm-up call for at most parallelism items at a time
+    private <T> CompletionStage<Done> inBatches(List<T> items, int from, Function<T, CompletionStage<Done>> warm) {
+        if (from >= items.size()) {
+            return CompletableFuture.completedFuture(Done.done());
+        }
+        CompletableFuture<?>[] batch = items.subList(from, Math.min(from + parallelism, items.size())).stream()
+                .map(item -> warm.apply(item).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(batch)
+                .thenCompose(done -> inBatches(items, from + parallelism, warm));
+    }
+
+    private CompletionStage<Done> warmSlot(String slotId, Run run) {
+        long firstRead = System.nanoTime();
+        return readSlot(slotId)
+                .thenCompose(slot -> {
+                    long secondRead = System.nanoTime();
+                    run.firstReadNanos.add(secondRead - firstRead);
+                    return readSlot(slotId).thenApply(again -> {
+                        run.secondReadNanos.add(System.nanoTime() - secondRead);
+                        run.slotsRead.increment();
+                        participantIds(slot).forEach(participantId ->
+                                run.participantSlotIds.add(ParticipantSlotEntity.entityId(slotId, participantId)));
+                        return Done.done();
+                    });
+                })
+                .handle((done, error) -> failedIsDone(slotId, error, run));
+    }
+
+    private CompletionStage<Done> activateParticipantSlot(String participantSlotId, Run run) {
+        return componentClient
+                .forEventSourcedEntity(participantSlotId)
+                .method(ParticipantSlotEntity::activate)
+                .invokeAsync()
+                .thenApply(done -> {
+                    run.participants.increment();
+                    return done;
+                })
+                .handle((done, error) -> failedIsDone(participantSlotId, error, run));
+    }
+
+    private CompletionStage<Timeslot> readSlot(String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync();
+    }
+
+    // Warm-up is best effort, a failed entity is simply loaded on first use
+    private Done failedIsDone(String entityId, Throwable error, Run run) {
+        if (error != null) {
+            run.failures.increment();
+            logger.debug("Failed to warm up {}", entityId, error);
+        }
+        return Done.done();
+    }
+
+    private Stream<String> participantIds(Timeslot slot) {
+        return Stream.concat(
+                slot.available().stream().map(Participant::id),
+                slot.bookings().stream().map(b -> b.participant().id()))
+                .distinct();
+    }
+}
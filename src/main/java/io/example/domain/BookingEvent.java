@@ -2,6 +2,7 @@ package io.example.domain;
 
 import akka.javasdk.annotations.TypeName;
 import io.example.domain.Participant.ParticipantType;
+import java.time.Instant;
 
 // The list of all events emitted by the BookingSlotEntity
 public sealed interface BookingEvent {
@@ -25,4 +26,19 @@ public sealed interface BookingEvent {
   record ParticipantCanceled(
       String slotId, String participantId, ParticipantType participantType, String bookingId)
       implements BookingEvent {}
+
+  @TypeName("participants-held")
+  record ParticipantsHeld(
+      String slotId,
+      String holdId,
+      String studentId,
+      String aircraftId,
+      String instructorId,
+      Instant expiresAt)
+      implements BookingEvent {}
+
+  // Emitted when a hold is converted into a booking with the same ID, or
+  // when it expires
+  @TypeName("hold-released")
+  record HoldReleased(String slotId, String holdId, boolean converted) implements BookingEvent {}
 }
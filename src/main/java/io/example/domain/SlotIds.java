@@ -0,0 +1,42 @@
+package io.example.domain;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Helpers for the yyyy-MM-dd-HH slot naming convention, e.g. 2025-08-08-09
+// is the slot for August 8th, 2025 at 9am local time. Slot IDs are otherwise
+// opaque, so these only apply to slots that follow the convention.
+public final class SlotIds {
+
+  public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH");
+
+  private SlotIds() {}
+
+  public static String of(LocalDateTime hour) {
+    return FORMAT.format(hour);
+  }
+
+  // Throws a DateTimeParseException if the ID doesn't follow the convention
+  public static LocalDateTime parse(String slotId) {
+    return LocalDateTime.parse(slotId, FORMAT);
+  }
+
+  public static String next(String slotId) {
+    return of(parse(slotId).plusHours(1));
+  }
+
+  // Returns up to `limit` consecutive hourly slot IDs starting at fromSlotId
+  // (inclusive) and stopping before toSlotId (exclusive).
+  public static List<String> hourly(String fromSlotId, String toSlotId, int limit) {
+    LocalDateTime end = parse(toSlotId);
+    List<String> slotIds = new ArrayList<>();
+    for (LocalDateTime hour = parse(fromSlotId);
+        hour.isBefore(end) && slotIds.size() < limit;
+        hour = hour.plusHours(1)) {
+      slotIds.add(of(hour));
+    }
+    return slotIds;
+  }
+}
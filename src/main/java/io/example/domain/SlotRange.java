@@ -0,0 +1,11 @@
+package io.example.domain;
+
+// A range of slot IDs from fromSlotId (inclusive) to toSlotId (exclusive).
+// Slot IDs are compared lexically, so with the yyyy-MM-dd-HH naming
+// convention a prefix such as 2025-08-08 selects a whole day.
+public record SlotRange(String fromSlotId, String toSlotId) {
+
+  public static SlotRange forPrefix(String prefix) {
+    return new SlotRange(prefix, prefix + Character.MAX_VALUE);
+  }
+}
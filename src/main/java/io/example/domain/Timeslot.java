@@ -5,29 +5,42 @@ import io.example.domain.Participant.ParticipantType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 // The Timeslot is a core domain object. It maintain two internal sets:
 // the list of bookings and the list of participants available for booking.
 // As bookings and availability are added and removed, the contents of those
-// sets are shifted from one to the other.
-public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
+// sets are shifted from one to the other. A third set holds short-lived holds
+// that keep available participants reserved for one pending booking.
+public record Timeslot(Set<Booking> bookings, Set<Participant> available, Set<Hold> holds) {
 
   private static Logger logger = LoggerFactory.getLogger(Timeslot.class);
 
+  public Timeslot {
+    // State persisted before holds existed has none
+    holds = holds == null ? new HashSet<>() : holds;
+  }
+
+  public Timeslot(Set<Booking> bookings, Set<Participant> available) {
+    this(bookings, available, new HashSet<>());
+  }
+
   public Timeslot reserve(BookingEvent.ParticipantMarkedAvailable reserved) {
     available.add(new Participant(reserved.participantId(), reserved.participantType()));
 
-    return new Timeslot(bookings, available);
+    return new Timeslot(bookings, available, holds);
   }
 
   public Timeslot unreserve(BookingEvent.ParticipantUnmarkedAvailable unreserved) {
     available.remove(new Participant(unreserved.participantId(), unreserved.participantType()));
 
-    return new Timeslot(bookings, available);
+    return new Timeslot(bookings, available, holds);
   }
 
   public Timeslot book(BookingEvent.ParticipantBooked booked) {
@@ -35,7 +48,29 @@ public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
     available.remove(p);
     bookings.add(new Booking(p, booked.bookingId()));
 
-    return new Timeslot(bookings, available);
+    return new Timeslot(bookings, available, holds);
+  }
+
+  public Timeslot hold(BookingEvent.ParticipantsHeld held) {
+    holds.add(
+        new Hold(
+            held.holdId(),
+            held.studentId(),
+            held.aircraftId(),
+            held.instructorId(),
+            held.expiresAt()));
+
+    return new Timeslot(bookings, available, holds);
+  }
+
+  public Timeslot releaseHold(String holdId) {
+    holds.removeIf(h -> h.holdId().equals(holdId));
+
+    return new Timeslot(bookings, available, holds);
+  }
+
+  public Optional<Hold> findHold(String holdId) {
+    return holds.stream().filter(h -> h.holdId().equals(holdId)).findFirst();
   }
 
   // Checks to see if the given participant is among those marked as available
@@ -43,10 +78,28 @@ public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
     return available.contains(new Participant(participantId, participantType));
   }
 
-  public boolean isBookable(String studentId, String aircraftId, String instructorId) {
+  // Checks to see if the given participant is reserved by an unexpired hold
+  // other than the one with the given ID
+  public boolean isHeldByOther(
+      String participantId, ParticipantType participantType, String holdId, Instant now) {
+    return holds.stream()
+        .anyMatch(
+            h ->
+                !h.holdId().equals(holdId)
+                    && h.isActive(now)
+                    && h.includes(participantId, participantType));
+  }
+
+  // A booking (or hold) with the given ID can take the three participants if
+  // all of them are available and none is held for a different booking.
+  public boolean isBookable(
+      String studentId, String aircraftId, String instructorId, String bookingId, Instant now) {
     return isWaiting(studentId, ParticipantType.STUDENT)
         && isWaiting(aircraftId, ParticipantType.AIRCRAFT)
-        && isWaiting(instructorId, ParticipantType.INSTRUCTOR);
+        && isWaiting(instructorId, ParticipantType.INSTRUCTOR)
+        && !isHeldByOther(studentId, ParticipantType.STUDENT, bookingId, now)
+        && !isHeldByOther(aircraftId, ParticipantType.AIRCRAFT, bookingId, now)
+        && !isHeldByOther(instructorId, ParticipantType.INSTRUCTOR, bookingId, now);
   }
 
   // Retrieves all booking entries for a given booking ID. Note that there will
@@ -56,13 +109,50 @@ public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
     return bookings.stream().filter(b -> b.bookingId().equals(bookingId)).toList();
   }
 
+  // Checks whether the booking with the given ID exists and is made up of
+  // exactly the given student, aircraft and instructor
+  public boolean isBookedBy(
+      String bookingId, String studentId, String aircraftId, String instructorId) {
+    Set<Participant> participants =
+        findBooking(bookingId).stream().map(Booking::participant).collect(Collectors.toSet());
+    return participants.equals(
+        Set.of(
+            new Participant(studentId, ParticipantType.STUDENT),
+            new Participant(aircraftId, ParticipantType.AIRCRAFT),
+            new Participant(instructorId, ParticipantType.INSTRUCTOR)));
+  }
+
   // Removes all three participants of a booking from the booking list. It does
   // not automatically mark them as available for that slot.
   public Timeslot cancelBooking(String bookingId) {
     Set<Booking> books =
         bookings.stream().filter(b -> !b.bookingId().equals(bookingId)).collect(Collectors.toSet());
-    return new Timeslot(books, available);
+    return new Timeslot(books, available, holds);
   }
 
   public record Booking(Participant participant, String bookingId) {}
+
+  // A tentative reservation of a student, aircraft and instructor that ends
+  // when it is converted into a booking with the same ID or when it expires.
+  public record Hold(
+      String holdId, String studentId, String aircraftId, String instructorId, Instant expiresAt) {
+
+    public boolean isActive(Instant now) {
+      return expiresAt.isAfter(now);
+    }
+
+    public boolean isFor(String studentId, String aircraftId, String instructorId) {
+      return this.studentId.equals(studentId)
+          && this.aircraftId.equals(aircraftId)
+          && this.instructorId.equals(instructorId);
+    }
+
+    public boolean includes(String participantId, ParticipantType participantType) {
+      return switch (participantType) {
+        case STUDENT -> studentId.equals(participantId);
+        case AIRCRAFT -> aircraftId.equals(participantId);
+        case INSTRUCTOR -> instructorId.equals(participantId);
+      };
+    }
+  }
 }
@@ -0,0 +1,437 @@
+package io.example;
+
+import akka.javasdk.http.StrictResponse;
+import akka.javasdk.testkit.TestKit;
+import akka.javasdk.testkit.TestKitSupport;
+import io.example.api.FlightEndpoint;
+import io.example.application.BookingSlotEntity;
+import io.example.application.LessonSeriesWorkflow;
+import io.example.application.ParticipantSlotsView;
+import io.example.domain.Participant;
+import io.example.domain.Timeslot;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Fires many concurrent, overlapping availability, booking, cancel, hold and
+// series booking requests at a few slots and then checks that no participant
+// ended up double booked, that every hold is released, that series bookings
+// are all-or-nothing without touching other bookings, that a rejected series
+// leaves the availability of its slots as it was, and that the
+// participant slot view converges on the slots' own state. The number of
+// operations can be raised with -Dstress.operations.
+public class DoubleBookingStressIntegrationTest extends TestKitSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoubleBookingStressIntegrationTest.class);
+
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 2_000);
+    // Kept below the HTTP client's open request limit
+    private static final int CONCURRENCY = 24;
+    private static final int SLOTS = 4;
+    private static final int STUDENTS = 8;
+    private static final int INSTRUCTORS = 3;
+    private static final int AIRCRAFT = 3;
+    // A small pool of booking IDs makes booking and cancel requests collide
+    private static final int BOOKING_IDS = 12;
+    private static final int HOLD_TTL_SECONDS = 1;
+
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+    private final List<String> slotIds = IntStream.range(0, SLOTS).mapToObj(i -> "stress-" + run + "-" + i).toList();
+    private final List<String> students = participants("student", STUDENTS);
+    private final List<String> instructors = participants("instructor", INSTRUCTORS);
+    private final List<String> aircraft = participants("aircraft", AIRCRAFT);
+
+    private final Map<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+    // Series IDs are handed out in order, so bookings and holds can reuse the
+    // ID of an earlier series
+    private final AtomicInteger nextSeries = new AtomicInteger();
+    private final Map<String, FlightEndpoint.SeriesBookingRequest> startedSeries = new ConcurrentHashMap<>();
+    // Bookings made while no cancels run
+    private final Set<TrackedBooking> trackedBookings = ConcurrentHashMap.newKeySet();
+
+    private record TrackedBooking(String slotId, String bookingId, String studentId, String aircraftId, String instructorId) {
+    }
+
+    // Admission control would reject most of this load from a single client
+    @Override
+    protected TestKit.Settings testKitSettings() {
+        return TestKit.Settings.DEFAULT.withAdditionalConfig("flight.admission.enabled = false");
+    }
+
+    @Test
+    public void noDoubleBookingsUnderConcurrentLoad() {
+        // Everyone starts out available everywhere
+        runConcurrently(slotIds.stream()
+                .flatMap(slotId -> allParticipants().stream().map(p -> (Supplier<CompletableFuture<Integer>>) () ->
+                        markAvailable(slotId, p)))
+                .toList());
+
+        long start = System.nanoTime();
+
+        // The first phase mixes all operations
+        runConcurrently(IntStream.range(0, OPERATIONS)
+                .mapToObj(i -> randomOperation(true))
+                .toList());
+        Set<String> firstPhaseSeries = awaitSeriesOutcomes(Set.copyOf(startedSeries.keySet())).keySet();
+
+        // The second phase makes no cancels, so a booking made in it can only
+        // disappear again if a series compensation removes it
+        runConcurrently(IntStream.range(0, OPERATIONS / 2)
+                .mapToObj(i -> randomOperation(false))
+                .toList());
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        int operations = OPERATIONS + OPERATIONS / 2;
+        logger.info("Stress: {} operations in {} s, {} ops/s, {} series, responses by status {}",
+                operations, "%.2f".formatted(seconds), "%.0f".formatted(operations / seconds),
+                startedSeries.size(), responsesByStatus);
+
+        Assertions.assertThat(responsesByStatus.keySet())
+                .as("only success and rejection responses")
+                .allMatch(status -> (status >= 200 && status < 300) || status == 400);
+
+        Set<String> secondPhaseSeries = new HashSet<>(startedSeries.keySet());
+        secondPhaseSeries.removeAll(firstPhaseSeries);
+        Map<String, LessonSeriesWorkflow.SeriesResult> outcomes = awaitSeriesOutcomes(secondPhaseSeries);
+
+        Map<String, Timeslot> slots = getSlots();
+        slots.forEach(this::assertNoDoubleBookings);
+        // Availability also changes through the concurrent mark and unmark
+        // requests, so it can't be checked per series here
+        assertSeriesAllOrNothing(outcomes, slots, Map.of());
+        assertTrackedBookingsKept(slots);
+
+        // The third phase only books series, so the availability of each slot
+        // only changes through series that got confirmed
+        Set<String> earlierSeries = Set.copyOf(startedSeries.keySet());
+        runConcurrently(IntStream.range(0, OPERATIONS / 10)
+                .mapToObj(i -> randomSeries())
+                .toList());
+        Set<String> thirdPhaseSeries = new HashSet<>(startedSeries.keySet());
+        thirdPhaseSeries.removeAll(earlierSeries);
+        Map<String, LessonSeriesWorkflow.SeriesResult> seriesOnlyOutcomes = awaitSeriesOutcomes(thirdPhaseSeries);
+
+        Map<String, Timeslot> slotsAfterSeries = getSlots();
+        slotsAfterSeries.forEach(this::assertNoDoubleBookings);
+        assertSeriesAllOrNothing(seriesOnlyOutcomes, slotsAfterSeries, slots);
+        assertTrackedBookingsKept(slotsAfterSeries);
+
+        for (String slotId : slotIds) {
+            Awaitility.await()
+                    .ignoreExceptions()
+                    .atMost(30, TimeUnit.SECONDS)
+                    .untilAsserted(() -> {
+                        Timeslot slot = getSlot(slotId);
+                        Assertions.assertThat(slot.holds()).as("holds left in %s", slotId).isEmpty();
+                        assertViewMatches(slotId, slot);
+                    });
+        }
+    }
+
+    private void assertNoDoubleBookings(String slotId, Timeslot slot) {
+        Map<Participant, Long> bookingsPerParticipant = slot.bookings().stream()
+                .collect(Collectors.groupingBy(Timeslot.Booking::participant, Collectors.counting()));
+        Assertions.assertThat(bookingsPerParticipant.values())
+                .as("bookings per participant in %s", slotId)
+                .allMatch(count -> count == 1);
+
+        Set<Participant> booked = bookingsPerParticipant.keySet();
+        Assertions.assertThat(slot.available())
+                .as("participants both booked and available in %s", slotId)
+                .doesNotContainAnyElementsOf(booked);
+
+        Map<String, List<Timeslot.Booking>> byBookingId = slot.bookings().stream()
+                .collect(Collectors.groupingBy(Timeslot.Booking::bookingId));
+        byBookingId.forEach((bookingId, bookings) -> Assertions.assertThat(bookings)
+                .as("participants of booking %s in %s", bookingId, slotId)
+                .extracting(b -> b.participant().participantType())
+                .containsExactlyInAnyOrder(Participant.ParticipantType.values()));
+    }
+
+    // A confirmed series holds its booking in every one of its slots, a
+    // rejected one in none of them. A booking with the same ID and the same
+    // participants made outside the series can't be told apart, so it's
+    // allowed to remain. Given the slots before the series ran, a rejected
+    // series must also have left their available participants unchanged, so
+    // only the participants of confirmed series may have gone from them.
+    private void assertSeriesAllOrNothing(Map<String, LessonSeriesWorkflow.SeriesResult> outcomes,
+                                          Map<String, Timeslot> slots, Map<String, Timeslot> slotsBefore) {
+        outcomes.forEach((seriesId, result) -> {
+            FlightEndpoint.SeriesBookingRequest request = startedSeries.get(seriesId);
+            Assertions.assertThat(result.status()).as("status of series %s", seriesId)
+                    .isIn(LessonSeriesWorkflow.Status.CONFIRMED, LessonSeriesWorkflow.Status.REJECTED);
+            for (String slotId : request.slotIds()) {
+                boolean bookedBySeries = slots.get(slotId).isBookedBy(
+                        seriesId, request.studentId(), request.aircraftId(), request.instructorId());
+                if (result.status() == LessonSeriesWorkflow.Status.CONFIRMED) {
+                    Assertions.assertThat(bookedBySeries)
+                            .as("confirmed series %s booked in %s", seriesId, slotId)
+                            .isTrue();
+                } else {
+                    boolean bookedOutsideSeries = trackedBookings.contains(new TrackedBooking(slotId, seriesId,
+                            request.studentId(), request.aircraftId(), request.instructorId()));
+                    Assertions.assertThat(bookedBySeries && !bookedOutsideSeries)
+                            .as("rejected series %s still booked in %s", seriesId, slotId)
+                            .isFalse();
+                }
+            }
+        });
+
+        slotsBefore.forEach((slotId, before) -> {
+            Set<Participant> expected = new HashSet<>(before.available());
+            outcomes.forEach((seriesId, result) -> {
+                FlightEndpoint.SeriesBookingRequest request = startedSeries.get(seriesId);
+                if (result.status() == LessonSeriesWorkflow.Status.CONFIRMED && request.slotIds().contains(slotId)) {
+                    expected.remove(new Participant(request.studentId(), Participant.ParticipantType.STUDENT));
+                    expected.remove(new Participant(request.aircraftId(), Participant.ParticipantType.AIRCRAFT));
+                    expected.remove(new Participant(request.instructorId(), Participant.ParticipantType.INSTRUCTOR));
+                }
+            });
+            Assertions.assertThat(slots.get(slotId).available())
+                    .as("available participants in %s after series", slotId)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        });
+    }
+
+    // Series compensation may only cancel bookings made up of the series'
+    // own participants
+    private void assertTrackedBookingsKept(Map<String, Timeslot> slots) {
+        for (TrackedBooking booking : trackedBookings) {
+            FlightEndpoint.SeriesBookingRequest series = startedSeries.get(booking.bookingId());
+            boolean indistinguishableFromSeries = series != null
+                    && series.slotIds().contains(booking.slotId())
+                    && series.studentId().equals(booking.studentId())
+                    && series.aircraftId().equals(booking.aircraftId())
+                    && series.instructorId().equals(booking.instructorId());
+            if (!indistinguishableFromSeries) {
+                Assertions.assertThat(slots.get(booking.slotId()).isBookedBy(booking.bookingId(),
+                                booking.studentId(), booking.aircraftId(), booking.instructorId()))
+                        .as("booking %s in %s kept", booking.bookingId(), booking.slotId())
+                        .isTrue();
+            }
+        }
+    }
+
+    // Every view row must be backed by the slot and vice versa, so there are
+    // neither orphaned nor missing rows
+    private void assertViewMatches(String slotId, Timeslot slot) {
+        Set<ParticipantSlotsView.SlotRow> expected = new HashSet<>();
+        slot.available().forEach(p -> expected.add(new ParticipantSlotsView.SlotRow(slotId, p.id(),
+                p.participantType().toString(), "", ParticipantSlotsView.SlotStatus.AVAILABLE)));
+        slot.bookings().forEach(b -> expected.add(new ParticipantSlotsView.SlotRow(slotId, b.participant().id(),
+                b.participant().participantType().toString(), b.bookingId(), ParticipantSlotsView.SlotStatus.BOOKED)));
+
+        List<ParticipantSlotsView.SlotRow> rows = componentClient
+                .forView()
+                .method(ParticipantSlotsView::getSlotsBySlot)
+                .invoke(slotId)
+                .slots();
+        Assertions.assertThat(rows).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    // Operations are built up front, in order, so the series IDs a booking
+    // or hold can pick are those of series created before it
+    private Supplier<CompletableFuture<Integer>> randomOperation(boolean withCancels) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String slotId = pick(slotIds);
+        int operation = random.nextInt(12);
+        if (operation == 3 || operation == 4) {
+            operation = withCancels ? operation : 5;
+        }
+        return switch (operation) {
+            case 0, 1, 2 -> {
+                TrackedBooking booking = new TrackedBooking(slotId, randomBookingId(),
+                        pick(students), pick(aircraft), pick(instructors));
+                yield () -> book(booking).thenApply(status -> {
+                    if (!withCancels && status == 201) {
+                        trackedBookings.add(booking);
+                    }
+                    return status;
+                });
+            }
+            case 3, 4 -> {
+                String bookingId = randomBookingId();
+                yield () -> cancel(slotId, bookingId);
+            }
+            case 5, 6 -> {
+                Participant p = pick(allParticipants());
+                yield () -> markAvailable(slotId, p);
+            }
+            case 7, 8 -> {
+                Participant p = pick(allParticipants());
+                yield () -> unmarkAvailable(slotId, p);
+            }
+            case 9, 10 -> {
+                FlightEndpoint.HoldRequest hold = new FlightEndpoint.HoldRequest(pick(students), pick(aircraft),
+                        pick(instructors), randomBookingId(), HOLD_TTL_SECONDS);
+                yield () -> hold(slotId, hold);
+            }
+            default -> randomSeries();
+        };
+    }
+
+    // A series of two or three of the slots under the next series ID
+    private Supplier<CompletableFuture<Integer>> randomSeries() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String seriesId = "series-" + run + "-" + nextSeries.getAndIncrement();
+        List<String> shuffled = new ArrayList<>(slotIds);
+        Collections.shuffle(shuffled, random);
+        FlightEndpoint.SeriesBookingRequest series = new FlightEndpoint.SeriesBookingRequest(pick(students),
+                pick(aircraft), pick(instructors), List.copyOf(shuffled.subList(0, 2 + random.nextInt(2))));
+        return () -> bookSeries(seriesId, series).thenApply(status -> {
+            if (status == 202) {
+                startedSeries.put(seriesId, series);
+            }
+            return status;
+        });
+    }
+
+    // Either one of the shared booking IDs or the ID of an earlier series
+    private String randomBookingId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int seriesCount = nextSeries.get();
+        if (seriesCount > 0 && random.nextBoolean()) {
+            return "series-" + run + "-" + random.nextInt(seriesCount);
+        }
+        return "booking-" + random.nextInt(BOOKING_IDS);
+    }
+
+    private CompletableFuture<Integer> markAvailable(String slotId, Participant p) {
+        return record(httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(p.id(), p.participantType().name()))
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> unmarkAvailable(String slotId, Participant p) {
+        return record(httpClient
+                .DELETE("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(p.id(), p.participantType().name()))
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> book(TrackedBooking booking) {
+        return record(httpClient
+                .POST("/flight/bookings/" + booking.slotId())
+                .withRequestBody(new FlightEndpoint.BookingRequest(booking.studentId(), booking.aircraftId(),
+                        booking.instructorId(), booking.bookingId()))
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> cancel(String slotId, String bookingId) {
+        return record(httpClient
+                .DELETE("/flight/bookings/" + slotId + "/" + bookingId)
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> hold(String slotId, FlightEndpoint.HoldRequest hold) {
+        return record(httpClient
+                .POST("/flight/holds/" + slotId)
+                .withRequestBody(hold)
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> bookSeries(String seriesId, FlightEndpoint.SeriesBookingRequest series) {
+        return record(httpClient
+                .POST("/flight/bookings/series/" + seriesId)
+                .withRequestBody(series)
+                .invokeAsync());
+    }
+
+    private CompletableFuture<Integer> record(CompletionStage<? extends StrictResponse<?>> response) {
+        return response
+                .thenApply(r -> r.status().intValue())
+                .whenComplete((status, error) -> responsesByStatus
+                        .computeIfAbsent(error == null ? status : -1, s -> new LongAdder())
+                        .increment())
+                .toCompletableFuture();
+    }
+
+    // Runs the operations with up to CONCURRENCY of them in flight at any
+    // time and waits for all of them to finish
+    private void runConcurrently(List<Supplier<CompletableFuture<Integer>>> operations) {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        List<CompletableFuture<Integer>> started = new ArrayList<>(operations.size());
+        for (Supplier<CompletableFuture<Integer>> operation : operations) {
+            inFlight.acquireUninterruptibly();
+            started.add(operation.get()
+                    .exceptionally(error -> -1)
+                    .whenComplete((status, error) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(started.toArray(CompletableFuture[]::new)).join();
+    }
+
+    // Series are booked in the background, waits until each one is done
+    private Map<String, LessonSeriesWorkflow.SeriesResult> awaitSeriesOutcomes(Collection<String> seriesIds) {
+        Map<String, LessonSeriesWorkflow.SeriesResult> outcomes = new HashMap<>();
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(60, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    for (String seriesId : seriesIds) {
+                        if (!outcomes.containsKey(seriesId)) {
+                            LessonSeriesWorkflow.SeriesResult result = httpClient
+                                    .GET("/flight/bookings/series/" + seriesId)
+                                    .responseBodyAs(LessonSeriesWorkflow.SeriesResult.class)
+                                    .invoke()
+                                    .body();
+                            Assertions.assertThat(result.status().isFinal()).as("series %s done", seriesId).isTrue();
+                            outcomes.put(seriesId, result);
+                        }
+                    }
+                });
+        return outcomes;
+    }
+
+    private Map<String, Timeslot> getSlots() {
+        Map<String, Timeslot> slots = new HashMap<>();
+        slotIds.forEach(slotId -> slots.put(slotId, getSlot(slotId)));
+        return slots;
+    }
+
+    private Timeslot getSlot(String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invoke();
+    }
+
+    private List<Participant> allParticipants() {
+        List<Participant> all = new ArrayList<>();
+        students.forEach(id -> all.add(new Participant(id, Participant.ParticipantType.STUDENT)));
+        instructors.forEach(id -> all.add(new Participant(id, Participant.ParticipantType.INSTRUCTOR)));
+        aircraft.forEach(id -> all.add(new Participant(id, Participant.ParticipantType.AIRCRAFT)));
+        return all;
+    }
+
+    private List<String> participants(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + "-" + run + "-" + i).toList();
+    }
+
+    private static <T> T pick(List<T> items) {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+}
@@ -0,0 +1,128 @@
+package io.example;
+
+import akka.http.javadsl.model.StatusCodes;
+import akka.javasdk.http.StrictResponse;
+import akka.javasdk.testkit.TestKitSupport;
+import akka.util.ByteString;
+import io.example.api.FlightEndpoint;
+import io.example.application.BookingSlotEntity;
+import io.example.application.HoldMetrics;
+import io.example.domain.Timeslot;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HoldsIntegrationTest extends TestKitSupport {
+
+    @Test
+    public void heldParticipantsCanOnlyBeBookedByTheHold() {
+        markAllAvailable("holdslot1");
+
+        var holdResponse = hold("holdslot1", "alice", "hold1", 60);
+        Assertions.assertThat(holdResponse.status()).isEqualTo(StatusCodes.CREATED);
+
+        var otherBookingResponse = book("holdslot1", "alice", "booking1");
+        Assertions.assertThat(otherBookingResponse.status()).isEqualTo(StatusCodes.BAD_REQUEST);
+        Assertions.assertThat(otherBookingResponse.body().utf8String())
+                .isEqualTo("Cannot book slot: one or more participants is unavailable.");
+
+        var otherHoldResponse = hold("holdslot1", "alice", "hold2", 60);
+        Assertions.assertThat(otherHoldResponse.status()).isEqualTo(StatusCodes.BAD_REQUEST);
+
+        var conversionResponse = book("holdslot1", "alice", "hold1");
+        Assertions.assertThat(conversionResponse.status()).isEqualTo(StatusCodes.CREATED);
+
+        Timeslot slot = getSlot("holdslot1");
+        Assertions.assertThat(slot.holds()).isEmpty();
+        Assertions.assertThat(slot.findBooking("hold1")).hasSize(3);
+
+        // The conversion counts even though the booking is canceled before
+        // the hold's timer fires
+        httpClient.DELETE("/flight/bookings/holdslot1/hold1").invoke();
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(holdMetrics().converted()).isPositive());
+    }
+
+    @Test
+    public void holdIsOnlyConvertedByBookingWithItsParticipants() {
+        markAllAvailable("holdslot2");
+        markAvailable("holdslot2", "bob", "student");
+
+        hold("holdslot2", "alice", "hold3", 60);
+
+        var mismatchResponse = book("holdslot2", "bob", "hold3");
+        Assertions.assertThat(mismatchResponse.status()).isEqualTo(StatusCodes.BAD_REQUEST);
+        Assertions.assertThat(mismatchResponse.body().utf8String())
+                .isEqualTo("Cannot book slot: hold hold3 is for other participants.");
+
+        Timeslot slot = getSlot("holdslot2");
+        Assertions.assertThat(slot.findHold("hold3")).isPresent();
+        Assertions.assertThat(slot.bookings()).isEmpty();
+    }
+
+    @Test
+    public void expiredHoldNoLongerBlocksAndIsReleased() {
+        markAllAvailable("holdslot3");
+
+        hold("holdslot3", "alice", "hold4", 1);
+
+        Awaitility.await()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(book("holdslot3", "alice", "booking4").status())
+                        .isEqualTo(StatusCodes.CREATED));
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    Assertions.assertThat(getSlot("holdslot3").holds()).isEmpty();
+                    Assertions.assertThat(holdMetrics().expired()).isPositive();
+                });
+    }
+
+    private void markAllAvailable(String slotId) {
+        markAvailable(slotId, "alice", "student");
+        markAvailable(slotId, "superplane", "aircraft");
+        markAvailable(slotId, "superteacher", "instructor");
+    }
+
+    private void markAvailable(String slotId, String participantId, String participantType) {
+        httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+    }
+
+    private StrictResponse<ByteString> hold(String slotId, String studentId, String holdId, int ttlSeconds) {
+        return httpClient
+                .POST("/flight/holds/" + slotId)
+                .withRequestBody(new FlightEndpoint.HoldRequest(studentId, "superplane", "superteacher", holdId, ttlSeconds))
+                .invoke();
+    }
+
+    private StrictResponse<ByteString> book(String slotId, String studentId, String bookingId) {
+        return httpClient
+                .POST("/flight/bookings/" + slotId)
+                .withRequestBody(new FlightEndpoint.BookingRequest(studentId, "superplane", "superteacher", bookingId))
+                .invoke();
+    }
+
+    private Timeslot getSlot(String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invoke();
+    }
+
+    private HoldMetrics.Stats holdMetrics() {
+        return httpClient
+                .GET("/admin/metrics/holds")
+                .responseBodyAs(HoldMetrics.Stats.class)
+                .invoke()
+                .body();
+    }
+}
@@ -0,0 +1,97 @@
+package io.example;
+
+import akka.javasdk.testkit.TestKitSupport;
+import io.example.api.AdminEndpoint;
+import io.example.api.FlightEndpoint;
+import io.example.application.ParkedEventsEntity;
+import io.example.application.ParticipantSlotEntity;
+import io.example.application.ParticipantSlotsView;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant.ParticipantType;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ParkedEventsIntegrationTest extends TestKitSupport {
+
+    private static final String SLOT = "parkslot1";
+    private static final String ALICE_KEY = ParticipantSlotEntity.entityId(SLOT, "alice");
+
+    @Test
+    public void eventsOfAParkedParticipantSlotWaitForTheReplay() {
+        // An earlier event for alice's participant slot failed and was parked
+        componentClient
+                .forKeyValueEntity(ALICE_KEY)
+                .method(ParkedEventsEntity::park)
+                .invoke(ParkedEventsEntity.ParkedEvent.of(
+                        new BookingEvent.ParticipantUnmarkedAvailable(SLOT, "alice", ParticipantType.STUDENT),
+                        "failed", Instant.now()));
+
+        markAvailable("alice");
+        markAvailable("bob");
+
+        // Bob's event comes after alice's, so once bob has a row alice's event
+        // has been handled, and it must have been parked behind the earlier one
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(rows())
+                        .extracting(ParticipantSlotsView.SlotRow::participantId)
+                        .containsExactly("bob"));
+        Assertions.assertThat(parkedEvents())
+                .extracting(ParkedEventsEntity.ParkedEvent::eventType, ParkedEventsEntity.ParkedEvent::sequence)
+                .containsExactly(
+                        Assertions.tuple("unmarked-available", 1L),
+                        Assertions.tuple("marked-available", 2L));
+
+        Assertions.assertThat(replay()).isEqualTo(new AdminEndpoint.ReplayResult(2, 0, ""));
+        // A retried replay finds nothing left to apply or remove
+        Assertions.assertThat(replay()).isEqualTo(new AdminEndpoint.ReplayResult(0, 0, ""));
+        Assertions.assertThat(parkedEvents()).isEmpty();
+
+        // Applied in their original order, alice ends up available
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(rows())
+                        .extracting(ParticipantSlotsView.SlotRow::participantId, ParticipantSlotsView.SlotRow::status)
+                        .containsExactlyInAnyOrder(
+                                Assertions.tuple("alice", ParticipantSlotsView.SlotStatus.AVAILABLE),
+                                Assertions.tuple("bob", ParticipantSlotsView.SlotStatus.AVAILABLE)));
+    }
+
+    private void markAvailable(String studentId) {
+        httpClient
+                .POST("/flight/availability/" + SLOT)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(studentId, "student"))
+                .invoke();
+    }
+
+    private List<ParticipantSlotsView.SlotRow> rows() {
+        return componentClient
+                .forView()
+                .method(ParticipantSlotsView::getSlotsBySlot)
+                .invoke(SLOT)
+                .slots();
+    }
+
+    private List<ParkedEventsEntity.ParkedEvent> parkedEvents() {
+        return componentClient
+                .forKeyValueEntity(ALICE_KEY)
+                .method(ParkedEventsEntity::getParked)
+                .invoke()
+                .events();
+    }
+
+    private AdminEndpoint.ReplayResult replay() {
+        return httpClient
+                .POST("/admin/parked/" + ALICE_KEY + "/replay")
+                .responseBodyAs(AdminEndpoint.ReplayResult.class)
+                .invoke()
+                .body();
+    }
+}
@@ -0,0 +1,133 @@
+package io.example;
+
+import akka.http.javadsl.model.StatusCodes;
+import akka.javasdk.testkit.TestKitSupport;
+import io.example.api.FlightEndpoint;
+import io.example.application.BookingSlotEntity;
+import io.example.application.SlotBoardView;
+import io.example.domain.Timeslot;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlotBoardViewIntegrationTest extends TestKitSupport {
+
+    @Test
+    public void boardListsWhoIsAvailableAndWhoIsBooked() {
+        // 09: bob stays available, alice, superplane and superteacher are booked
+        markAvailable("2032-06-07-09", "alice", "student");
+        markAvailable("2032-06-07-09", "bob", "student");
+        markAvailable("2032-06-07-09", "superplane", "aircraft");
+        markAvailable("2032-06-07-09", "superteacher", "instructor");
+        book("2032-06-07-09", "superteacher", "booking1");
+
+        // 10: booked and then canceled, canceled participants are not available again
+        markAvailable("2032-06-07-10", "alice", "student");
+        markAvailable("2032-06-07-10", "superplane", "aircraft");
+        markAvailable("2032-06-07-10", "superteacher", "instructor");
+        book("2032-06-07-10", "superteacher", "booking2");
+        cancel("2032-06-07-10", "booking2");
+
+        markAvailable("2032-06-08-09", "alice", "student");
+
+        SlotBoardView.BoardRow expected09 = new SlotBoardView.BoardRow("2032-06-07-09",
+                List.of(new SlotBoardView.BoardParticipant("bob", "STUDENT")),
+                List.of(new SlotBoardView.BoardBooking("booking1", "alice", "STUDENT"),
+                        new SlotBoardView.BoardBooking("booking1", "superteacher", "INSTRUCTOR"),
+                        new SlotBoardView.BoardBooking("booking1", "superplane", "AIRCRAFT")));
+        SlotBoardView.BoardRow expected10 = new SlotBoardView.BoardRow("2032-06-07-10", List.of(), List.of());
+        SlotBoardView.BoardRow expectedNextDay = new SlotBoardView.BoardRow("2032-06-08-09",
+                List.of(new SlotBoardView.BoardParticipant("alice", "STUDENT")), List.of());
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(board("/flight/board/2032-06-07-09/2032-06-08-10"))
+                        .containsExactly(expected09, expected10, expectedNextDay));
+    }
+
+    @Test
+    public void sameIdAsTwoParticipantTypesIsListedPerType() {
+        // sam is both a student and an instructor
+        markAvailable("2032-06-09-09", "sam", "student");
+        markAvailable("2032-06-09-09", "sam", "instructor");
+        markAvailable("2032-06-09-09", "superplane", "aircraft");
+        markAvailable("2032-06-09-09", "alice", "student");
+        markAvailable("2032-06-09-10", "sam", "student");
+        markAvailable("2032-06-09-10", "sam", "instructor");
+
+        // Booking sam as instructor leaves sam available as a student
+        book("2032-06-09-09", "sam", "booking3");
+        // Unmarking sam as instructor leaves sam available as a student
+        unmarkAvailable("2032-06-09-10", "sam", "instructor");
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(board("/flight/board/2032-06-09"))
+                        .containsExactly(
+                                new SlotBoardView.BoardRow("2032-06-09-09",
+                                        List.of(new SlotBoardView.BoardParticipant("sam", "STUDENT")),
+                                        List.of(new SlotBoardView.BoardBooking("booking3", "alice", "STUDENT"),
+                                                new SlotBoardView.BoardBooking("booking3", "sam", "INSTRUCTOR"),
+                                                new SlotBoardView.BoardBooking("booking3", "superplane", "AIRCRAFT"))),
+                                new SlotBoardView.BoardRow("2032-06-09-10",
+                                        List.of(new SlotBoardView.BoardParticipant("sam", "STUDENT")), List.of())));
+
+        // The board agrees with the slot entity
+        for (SlotBoardView.BoardRow row : board("/flight/board/2032-06-09")) {
+            Timeslot slot = componentClient
+                    .forEventSourcedEntity(row.slotId())
+                    .method(BookingSlotEntity::getSlot)
+                    .invoke();
+            Assertions.assertThat(row.available())
+                    .containsExactlyInAnyOrderElementsOf(slot.available().stream()
+                            .map(p -> new SlotBoardView.BoardParticipant(p.id(), p.participantType().toString()))
+                            .toList());
+        }
+    }
+
+    private List<SlotBoardView.BoardRow> board(String path) {
+        return httpClient
+                .GET(path)
+                .responseBodyAs(SlotBoardView.BoardList.class)
+                .invoke()
+                .body()
+                .slots();
+    }
+
+    private void markAvailable(String slotId, String participantId, String participantType) {
+        var response = httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+
+    private void unmarkAvailable(String slotId, String participantId, String participantType) {
+        var response = httpClient
+                .DELETE("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+
+    // Books alice with superplane and the given instructor
+    private void book(String slotId, String instructorId, String bookingId) {
+        var response = httpClient
+                .POST("/flight/bookings/" + slotId)
+                .withRequestBody(new FlightEndpoint.BookingRequest("alice", "superplane", instructorId, bookingId))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.CREATED);
+    }
+
+    private void cancel(String slotId, String bookingId) {
+        var response = httpClient
+                .DELETE("/flight/bookings/" + slotId + "/" + bookingId)
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+}
@@ -0,0 +1,130 @@
+package io.example;
+
+import akka.http.javadsl.model.StatusCodes;
+import akka.javasdk.testkit.TestKitSupport;
+import io.example.api.FlightEndpoint;
+import io.example.application.SlotOccupancyView;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.tuple;
+
+public class SlotOccupancyViewIntegrationTest extends TestKitSupport {
+
+    @Test
+    public void countersFollowAvailabilityBookingsAndHolds() {
+        // 09: bob stays available, alice, superplane and superteacher are booked,
+        // carol is marked available twice and then unmarked
+        markAvailable("2031-03-04-09", "alice", "student");
+        markAvailable("2031-03-04-09", "bob", "student");
+        markAvailable("2031-03-04-09", "carol", "student");
+        markAvailable("2031-03-04-09", "carol", "student");
+        markAvailable("2031-03-04-09", "superplane", "aircraft");
+        markAvailable("2031-03-04-09", "superteacher", "instructor");
+        book("2031-03-04-09", "booking1");
+        unmarkAvailable("2031-03-04-09", "carol", "student");
+
+        // 10: held participants are still counted as available
+        markAllAvailable("2031-03-04-10");
+        hold("2031-03-04-10", "hold1");
+
+        // 11: booked and then canceled, canceled participants are not available again
+        markAllAvailable("2031-03-04-11");
+        book("2031-03-04-11", "booking2");
+        cancel("2031-03-04-11", "booking2");
+
+        markAvailable("2031-03-05-09", "alice", "student");
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(occupancy("/flight/occupancy/2031-03-04"))
+                        .containsExactly(
+                                new SlotOccupancyView.SlotOccupancy("2031-03-04-09", 1, 0, 0, 1, 0),
+                                new SlotOccupancyView.SlotOccupancy("2031-03-04-10", 1, 1, 1, 0, 1),
+                                new SlotOccupancyView.SlotOccupancy("2031-03-04-11", 0, 0, 0, 0, 0)));
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(occupancy("/flight/occupancy/2031-03-04-10/2031-03-05-10"))
+                        .extracting(SlotOccupancyView.SlotOccupancy::slotId, SlotOccupancyView.SlotOccupancy::availableStudents)
+                        .containsExactly(
+                                tuple("2031-03-04-10", 1),
+                                tuple("2031-03-04-11", 0),
+                                tuple("2031-03-05-09", 1)));
+    }
+
+    @Test
+    public void onlyCountersAreReturned() {
+        markAllAvailable("2031-03-06-09");
+
+        Awaitility.await()
+                .ignoreExceptions()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> Assertions.assertThat(occupancy("/flight/occupancy/2031-03-06")).hasSize(1));
+
+        String body = httpClient.GET("/flight/occupancy/2031-03-06").invoke().body().utf8String();
+        Assertions.assertThat(body)
+                .contains("\"availableStudents\":1")
+                .doesNotContain("alice", "superplane", "superteacher");
+    }
+
+    private List<SlotOccupancyView.SlotOccupancy> occupancy(String path) {
+        return httpClient
+                .GET(path)
+                .responseBodyAs(SlotOccupancyView.OccupancyList.class)
+                .invoke()
+                .body()
+                .slots();
+    }
+
+    private void markAllAvailable(String slotId) {
+        markAvailable(slotId, "alice", "student");
+        markAvailable(slotId, "superplane", "aircraft");
+        markAvailable(slotId, "superteacher", "instructor");
+    }
+
+    private void markAvailable(String slotId, String participantId, String participantType) {
+        var response = httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+
+    private void unmarkAvailable(String slotId, String participantId, String participantType) {
+        var response = httpClient
+                .DELETE("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+
+    private void book(String slotId, String bookingId) {
+        var response = httpClient
+                .POST("/flight/bookings/" + slotId)
+                .withRequestBody(new FlightEndpoint.BookingRequest("alice", "superplane", "superteacher", bookingId))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.CREATED);
+    }
+
+    private void hold(String slotId, String holdId) {
+        var response = httpClient
+                .POST("/flight/holds/" + slotId)
+                .withRequestBody(new FlightEndpoint.HoldRequest("alice", "superplane", "superteacher", holdId, 60))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.CREATED);
+    }
+
+    private void cancel(String slotId, String bookingId) {
+        var response = httpClient
+                .DELETE("/flight/bookings/" + slotId + "/" + bookingId)
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+}
@@ -0,0 +1,73 @@
+package io.example;
+
+import akka.http.javadsl.model.StatusCodes;
+import akka.javasdk.testkit.TestKit;
+import akka.javasdk.testkit.TestKitSupport;
+import io.example.api.FlightEndpoint;
+import io.example.application.SlotWarmup;
+import io.example.domain.SlotIds;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+// Runs a warm-up over upcoming slots and reports the latency of the first
+// read of each slot, what a request pays without warm-up, against the read
+// right after it, what a request pays once the slot is warm.
+public class SlotWarmupIntegrationTest extends TestKitSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotWarmupIntegrationTest.class);
+
+    private static final int HOURS = 3;
+
+    @Override
+    protected TestKit.Settings testKitSettings() {
+        return TestKit.Settings.DEFAULT.withAdditionalConfig(
+                "flight.warmup { hours = " + HOURS + ", parallelism = 2 }");
+    }
+
+    @Test
+    public void warmupReportsFirstAndSecondReadLatency() {
+        // The next hour stays within the warm-up window even if the current
+        // hour ends while the test runs
+        String slotId = SlotIds.of(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1));
+        markAvailable(slotId, "alice", "student");
+        markAvailable(slotId, "superplane", "aircraft");
+        markAvailable(slotId, "superteacher", "instructor");
+
+        var started = httpClient.POST("/admin/warmup").invoke();
+        Assertions.assertThat(started.status()).isEqualTo(StatusCodes.ACCEPTED);
+
+        SlotWarmup.Stats stats = Awaitility.await()
+                .ignoreExceptions()
+                .atMost(30, TimeUnit.SECONDS)
+                .until(() -> httpClient
+                                .GET("/admin/metrics/warmup")
+                                .responseBodyAs(SlotWarmup.Stats.class)
+                                .invoke()
+                                .body(),
+                        result -> result != null);
+
+        logger.info("Warm-up of {} slots and {} participant slots took {} ms, first read {} us, second read {} us",
+                stats.slots(), stats.participants(), stats.durationMillis(),
+                stats.firstReadMicros(), stats.secondReadMicros());
+        Assertions.assertThat(stats.slots()).isEqualTo(HOURS);
+        Assertions.assertThat(stats.participants()).isGreaterThanOrEqualTo(3);
+        Assertions.assertThat(stats.failures()).isZero();
+        Assertions.assertThat(stats.firstReadMicros()).isPositive();
+        Assertions.assertThat(stats.secondReadMicros()).isPositive();
+    }
+
+    private void markAvailable(String slotId, String participantId, String participantType) {
+        var response = httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invoke();
+        Assertions.assertThat(response.status()).isEqualTo(StatusCodes.OK);
+    }
+}
@@ -0,0 +1,131 @@
+package io.example.api;
+
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.StatusCodes;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdmissionControlTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void participantOverItsRateIsRejectedWithRetryAfterRoundedUp() {
+        AdmissionControl admissionControl = admissionControl(
+                "participant-requests-per-second = 0.5, participant-burst = 1");
+
+        Assertions.assertThat(admit(admissionControl, null, "alice").status()).isEqualTo(StatusCodes.OK);
+
+        // The next token is 1.9 seconds away
+        advanceMillis(100);
+        HttpResponse rejected = admit(admissionControl, null, "alice");
+        Assertions.assertThat(rejected.status()).isEqualTo(StatusCodes.TOO_MANY_REQUESTS);
+        Assertions.assertThat(rejected.getHeader("Retry-After")).hasValueSatisfying(
+                header -> Assertions.assertThat(header.value()).isEqualTo("2"));
+
+        // Other participants have their own bucket
+        Assertions.assertThat(admit(admissionControl, null, "bob").status()).isEqualTo(StatusCodes.OK);
+
+        advanceMillis(2_000);
+        Assertions.assertThat(admit(admissionControl, null, "alice").status()).isEqualTo(StatusCodes.OK);
+        Assertions.assertThat(admissionControl.stats().shedByParticipantRate()).isEqualTo(1);
+    }
+
+    @Test
+    public void slotAtItsConcurrencyLimitIsRejected() {
+        AdmissionControl admissionControl = admissionControl(
+                "max-concurrent-requests-per-slot = 1, retry-after = 1500ms");
+
+        HttpResponse[] nested = new HttpResponse[2];
+        HttpResponse outer = admissionControl.admit("slot-1", null, () -> {
+            nested[0] = admit(admissionControl, "slot-1", null);
+            nested[1] = admit(admissionControl, "slot-2", null);
+            return HttpResponse.create();
+        });
+
+        Assertions.assertThat(outer.status()).isEqualTo(StatusCodes.OK);
+        Assertions.assertThat(nested[0].status()).isEqualTo(StatusCodes.TOO_MANY_REQUESTS);
+        Assertions.assertThat(nested[0].getHeader("Retry-After")).hasValueSatisfying(
+                header -> Assertions.assertThat(header.value()).isEqualTo("2"));
+        Assertions.assertThat(nested[1].status()).isEqualTo(StatusCodes.OK);
+
+        // The slot is free again once the outer request has finished
+        Assertions.assertThat(admit(admissionControl, "slot-1", null).status()).isEqualTo(StatusCodes.OK);
+        Assertions.assertThat(admissionControl.stats().shedBySlotConcurrency()).isEqualTo(1);
+        Assertions.assertThat(admissionControl.stats().slotsInFlight()).isZero();
+    }
+
+    @Test
+    public void requestShedBySlotLimitDoesNotUseUpTheParticipantsRate() {
+        AdmissionControl admissionControl = admissionControl(
+                "max-concurrent-requests-per-slot = 1, participant-requests-per-second = 0.1, participant-burst = 2");
+
+        HttpResponse[] nested = new HttpResponse[4];
+        admissionControl.admit("slot-1", "bob", () -> {
+            // Shed by the slot limit, alice keeps both of her tokens
+            nested[0] = admit(admissionControl, "slot-1", "alice");
+            nested[1] = admit(admissionControl, "slot-2", "alice");
+            nested[2] = admit(admissionControl, "slot-2", "alice");
+            nested[3] = admit(admissionControl, "slot-2", "alice");
+            return HttpResponse.create();
+        });
+
+        Assertions.assertThat(nested[0].status()).isEqualTo(StatusCodes.TOO_MANY_REQUESTS);
+        Assertions.assertThat(nested[1].status()).isEqualTo(StatusCodes.OK);
+        Assertions.assertThat(nested[2].status()).isEqualTo(StatusCodes.OK);
+        Assertions.assertThat(nested[3].status()).isEqualTo(StatusCodes.TOO_MANY_REQUESTS);
+        Assertions.assertThat(admissionControl.stats().shedBySlotConcurrency()).isEqualTo(1);
+        Assertions.assertThat(admissionControl.stats().shedByParticipantRate()).isEqualTo(1);
+    }
+
+    @Test
+    public void disabledAdmissionControlAdmitsEverything() {
+        AdmissionControl admissionControl = admissionControl(
+                "enabled = false, max-concurrent-requests-per-slot = 1, participant-burst = 1");
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThat(admit(admissionControl, "slot-1", "alice").status()).isEqualTo(StatusCodes.OK);
+        }
+    }
+
+    @Test
+    public void idleBucketsAreDroppedOnceTheyHaveRefilled() {
+        AdmissionControl admissionControl = admissionControl(
+                "participant-requests-per-second = 1, participant-burst = 2, max-tracked-participants = 2");
+
+        admit(admissionControl, null, "alice");
+        admit(admissionControl, null, "bob");
+        admit(admissionControl, null, "carol");
+        Assertions.assertThat(admissionControl.stats().trackedParticipants()).isEqualTo(3);
+
+        // Within the refill interval nothing is swept again
+        advanceMillis(1_000);
+        admit(admissionControl, null, "dave");
+        admit(admissionControl, null, "dave");
+        Assertions.assertThat(admissionControl.stats().trackedParticipants()).isEqualTo(4);
+
+        // Only dave's bucket hasn't refilled yet and is kept
+        advanceMillis(1_500);
+        admit(admissionControl, null, "erin");
+        Assertions.assertThat(admissionControl.stats().trackedParticipants()).isEqualTo(2);
+    }
+
+    private AdmissionControl admissionControl(String overrides) {
+        Config config = ConfigFactory.parseString(overrides)
+                .withFallback(ConfigFactory.load().getConfig("flight.admission"));
+        return new AdmissionControl(config, clock::get);
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static HttpResponse admit(AdmissionControl admissionControl, String slotId, String participantId) {
+        return admissionControl.admit(slotId, participantId, HttpResponse::create);
+    }
+}
@@ -0,0 +1,166 @@
+package io.example.api;
+
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntity;
+import akka.http.javadsl.model.HttpHeader;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.headers.RawHeader;
+import io.example.application.ParticipantSlotsView;
+import io.example.domain.Participant;
+import io.example.domain.Timeslot;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+// Checks how responses are negotiated and compares payload size and encode
+// time of the supported response encodings for large slot lists. Numbers are
+// logged so they can be tracked over time.
+public class ResponseEncodingTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseEncodingTest.class);
+
+    private static final int ROWS = 2_000;
+    private static final int ITERATIONS = 200;
+    private static final int COMPRESSION_THRESHOLD_BYTES = 1_024;
+
+    private final ResponseEncoding responseEncoding = new ResponseEncoding(COMPRESSION_THRESHOLD_BYTES);
+
+    @Test
+    public void jsonIsTheDefault() {
+        ParticipantSlotsView.SlotList slotList = slotList(1);
+
+        HttpResponse response = responseEncoding.ok(slotList, Optional.empty(), Optional.empty());
+
+        Assertions.assertThat(response.entity().getContentType()).isEqualTo(ContentTypes.APPLICATION_JSON);
+        Assertions.assertThat(body(response)).isEqualTo(ResponseEncoding.encodeJson(slotList));
+        Assertions.assertThat(response.getHeader("Vary")).hasValueSatisfying(
+                header -> Assertions.assertThat(header.value()).isEqualTo("Accept, Accept-Encoding"));
+        Assertions.assertThat(response.getHeader("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    public void cborIsSentWhenAccepted() {
+        ParticipantSlotsView.SlotList slotList = slotList(1);
+
+        HttpResponse response = responseEncoding.ok(slotList,
+                header("Accept", "application/json;q=0.5, application/cbor"), Optional.empty());
+
+        Assertions.assertThat(response.entity().getContentType())
+                .isEqualTo(ContentTypes.create(ResponseEncoding.APPLICATION_CBOR));
+        Assertions.assertThat(body(response)).isEqualTo(ResponseEncoding.encodeCbor(slotList));
+        Assertions.assertThat(response.getHeader("Vary")).isPresent();
+    }
+
+    @Test
+    public void onlyResponsesAtOrAboveTheThresholdAreCompressed() throws IOException {
+        ParticipantSlotsView.SlotList small = slotList(1);
+        ParticipantSlotsView.SlotList large = slotList(ROWS);
+        Assertions.assertThat(ResponseEncoding.encodeJson(small).length).isLessThan(COMPRESSION_THRESHOLD_BYTES);
+
+        HttpResponse smallResponse = responseEncoding.ok(small, Optional.empty(), header("Accept-Encoding", "gzip, deflate"));
+        Assertions.assertThat(smallResponse.getHeader("Content-Encoding")).isEmpty();
+        Assertions.assertThat(body(smallResponse)).isEqualTo(ResponseEncoding.encodeJson(small));
+
+        HttpResponse largeResponse = responseEncoding.ok(large, Optional.empty(), header("Accept-Encoding", "gzip, deflate"));
+        Assertions.assertThat(largeResponse.getHeader("Content-Encoding")).hasValueSatisfying(
+                header -> Assertions.assertThat(header.value()).isEqualTo("gzip"));
+        Assertions.assertThat(largeResponse.entity().getContentType()).isEqualTo(ContentTypes.APPLICATION_JSON);
+        Assertions.assertThat(gunzip(body(largeResponse))).isEqualTo(ResponseEncoding.encodeJson(large));
+
+        // Without Accept-Encoding large responses are sent as they are
+        HttpResponse uncompressed = responseEncoding.ok(large, Optional.empty(), Optional.empty());
+        Assertions.assertThat(uncompressed.getHeader("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    public void thresholdIsInclusive() {
+        ParticipantSlotsView.SlotList slotList = slotList(1);
+        ResponseEncoding atThreshold = new ResponseEncoding(ResponseEncoding.encodeJson(slotList).length);
+
+        HttpResponse response = atThreshold.ok(slotList, Optional.empty(), header("Accept-Encoding", "gzip"));
+
+        Assertions.assertThat(response.getHeader("Content-Encoding")).isPresent();
+    }
+
+    @Test
+    public void cborAndGzipAreSmallerThanJsonForSlotLists() {
+        ParticipantSlotsView.SlotList slotList = slotList(ROWS);
+
+        byte[] json = ResponseEncoding.encodeJson(slotList);
+        byte[] cbor = ResponseEncoding.encodeCbor(slotList);
+
+        report("SlotList", slotList);
+        Assertions.assertThat(cbor.length).isLessThan(json.length);
+        Assertions.assertThat(ResponseEncoding.gzip(json).length).isLessThan(cbor.length);
+    }
+
+    @Test
+    public void cborIsSmallerThanJsonForTimeslots() {
+        Set<Participant> available = new HashSet<>();
+        Set<Timeslot.Booking> bookings = new HashSet<>();
+        for (int i = 0; i < ROWS / 10; i++) {
+            available.add(new Participant("student-" + i, Participant.ParticipantType.STUDENT));
+            bookings.add(new Timeslot.Booking(
+                    new Participant("aircraft-" + i, Participant.ParticipantType.AIRCRAFT), "booking-" + i));
+        }
+        Timeslot timeslot = new Timeslot(bookings, available);
+
+        report("Timeslot", timeslot);
+        Assertions.assertThat(ResponseEncoding.encodeCbor(timeslot).length)
+                .isLessThan(ResponseEncoding.encodeJson(timeslot).length);
+    }
+
+    private void report(String name, Object body) {
+        logger.info("{} json: {} bytes, {} us/op", name,
+                ResponseEncoding.encodeJson(body).length, microsPerOp(body, ResponseEncoding::encodeJson));
+        logger.info("{} cbor: {} bytes, {} us/op", name,
+                ResponseEncoding.encodeCbor(body).length, microsPerOp(body, ResponseEncoding::encodeCbor));
+        logger.info("{} json+gzip: {} bytes, {} us/op", name,
+                ResponseEncoding.gzip(ResponseEncoding.encodeJson(body)).length,
+                microsPerOp(body, b -> ResponseEncoding.gzip(ResponseEncoding.encodeJson(b))));
+    }
+
+    private long microsPerOp(Object body, Function<Object, byte[]> encoder) {
+        // warm up before measuring
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.apply(body);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.apply(body);
+        }
+        return (System.nanoTime() - start) / ITERATIONS / 1_000;
+    }
+
+    private static ParticipantSlotsView.SlotList slotList(int rows) {
+        return new ParticipantSlotsView.SlotList(IntStream.range(0, rows)
+                .mapToObj(i -> new ParticipantSlotsView.SlotRow(
+                        "2025-08-%02d-%02d".formatted(1 + i / 24 % 28, i % 24), "alice",
+                        "STUDENT", "booking-" + i, ParticipantSlotsView.SlotStatus.BOOKED))
+                .toList());
+    }
+
+    private static Optional<HttpHeader> header(String name, String value) {
+        return Optional.of(RawHeader.create(name, value));
+    }
+
+    private static byte[] body(HttpResponse response) {
+        return ((HttpEntity.Strict) response.entity()).getData().toArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.example.api;
+
+import com.typesafe.config.ConfigFactory;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight singleFlight = new SingleFlight(
+            ConfigFactory.parseString("routes { enabled-route = true, disabled-route = false }"));
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentIdenticalReadsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Object result = new Object();
+
+        List<CompletableFuture<Object>> callers = startCallers("enabled-route", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return result;
+        });
+        awaitCollapsed("enabled-route", CALLERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<Object> caller : callers) {
+            Assertions.assertThat(caller.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        }
+        Assertions.assertThat(calls.get()).isEqualTo(1);
+        Assertions.assertThat(singleFlight.stats().get("enabled-route"))
+                .isEqualTo(new SingleFlight.RouteStats(1, CALLERS - 1));
+    }
+
+    @Test
+    public void errorInTheSharedCallReachesEveryCaller() {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Object>> callers = startCallers("enabled-route", () -> {
+            await(release);
+            throw new StackOverflowError("boom");
+        });
+        awaitCollapsed("enabled-route", CALLERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<Object> caller : callers) {
+            Assertions.assertThatThrownBy(() -> caller.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+        }
+    }
+
+    @Test
+    public void disabledRouteCallsEveryTime() {
+        AtomicInteger calls = new AtomicInteger();
+
+        IntStream.range(0, 3).forEach(i -> singleFlight.execute("disabled-route", "key", calls::incrementAndGet));
+
+        Assertions.assertThat(calls.get()).isEqualTo(3);
+        Assertions.assertThat(singleFlight.stats()).doesNotContainKey("disabled-route");
+    }
+
+    private List<CompletableFuture<Object>> startCallers(String route, Supplier<Object> call) {
+        return IntStream.range(0, CALLERS)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> singleFlight.execute(route, "key", call), executor))
+                .toList();
+    }
+
+    private void awaitCollapsed(String route, long collapsed) {
+        Awaitility.await()
+                .atMost(5, TimeUnit.SECONDS)
+                .until(() -> singleFlight.stats().containsKey(route)
+                        && singleFlight.stats().get(route).collapsed() == collapsed);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.example.application;
+
+import com.typesafe.config.ConfigFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConsumerRetriesTest {
+
+    private final List<Duration> sleeps = new ArrayList<>();
+    private final ConsumerRetries retries = new ConsumerRetries(
+            ConfigFactory.parseString("max-attempts = 5, initial-backoff = 100ms, max-backoff = 300ms"),
+            sleeps::add);
+
+    @Test
+    public void backoffDoublesUpToTheMaximum() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retries.withRetries("key", () -> {
+            if (attempts.incrementAndGet() < 5) {
+                throw new IllegalStateException("failed");
+            }
+            return "done";
+        });
+
+        Assertions.assertThat(result).isEqualTo("done");
+        Assertions.assertThat(sleeps).containsExactly(
+                Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofMillis(300), Duration.ofMillis(300));
+        Assertions.assertThat(retries.stats().retries()).isEqualTo(4);
+    }
+
+    @Test
+    public void lastFailureIsRethrownOnceAttemptsRunOut() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Assertions.assertThatThrownBy(() -> retries.withRetries("key", () -> {
+                    throw new IllegalStateException("attempt " + attempts.incrementAndGet());
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("attempt 5");
+        Assertions.assertThat(sleeps).hasSize(4);
+    }
+
+    @Test
+    public void successfulCallIsNotRetried() {
+        Assertions.assertThat(retries.withRetries("key", () -> "done")).isEqualTo("done");
+        Assertions.assertThat(sleeps).isEmpty();
+        Assertions.assertThat(retries.stats().retries()).isZero();
+    }
+}
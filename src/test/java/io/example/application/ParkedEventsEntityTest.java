@@ -0,0 +1,93 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.testkit.KeyValueEntityTestKit;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant.ParticipantType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+public class ParkedEventsEntityTest {
+
+    private static final String KEY = "2025-08-08-09-alice";
+
+    private final KeyValueEntityTestKit<ParkedEventsEntity.State, ParkedEventsEntity> testKit =
+            KeyValueEntityTestKit.of(KEY, ParkedEventsEntity::new);
+
+    @Test
+    public void parkingTheSameEventTwiceKeepsOneCopy() {
+        var booked = parked(new BookingEvent.ParticipantBooked("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::park).invoke(booked).getReply()).isEqualTo(Done.done());
+        testKit.method(ParkedEventsEntity::park).invoke(booked);
+
+        Assertions.assertThat(testKit.getState().events())
+                .extracting(ParkedEventsEntity.ParkedEvent::sequence)
+                .containsExactly(1L);
+    }
+
+    @Test
+    public void eventsAreOnlyParkedBehindParkedEvents() {
+        var available = parked(new BookingEvent.ParticipantMarkedAvailable("2025-08-08-09", "alice", ParticipantType.STUDENT));
+        var booked = parked(new BookingEvent.ParticipantBooked("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+        var canceled = parked(new BookingEvent.ParticipantCanceled("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+
+        // Nothing parked yet, so the event is applied right away
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::parkIfAnyParked).invoke(available).getReply()).isFalse();
+        Assertions.assertThat(testKit.getState().events()).isEmpty();
+
+        testKit.method(ParkedEventsEntity::park).invoke(booked);
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::parkIfAnyParked).invoke(canceled).getReply()).isTrue();
+        // A redelivered event is not parked twice
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::parkIfAnyParked).invoke(canceled).getReply()).isTrue();
+
+        Assertions.assertThat(testKit.getState().events())
+                .extracting(ParkedEventsEntity.ParkedEvent::eventType, ParkedEventsEntity.ParkedEvent::sequence)
+                .containsExactly(
+                        Assertions.tuple("booked", 1L),
+                        Assertions.tuple("canceled", 2L));
+    }
+
+    @Test
+    public void removingReplayedEventsKeepsLaterOnes() {
+        var booked = parked(new BookingEvent.ParticipantBooked("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+        var canceled = parked(new BookingEvent.ParticipantCanceled("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+        var available = parked(new BookingEvent.ParticipantMarkedAvailable("2025-08-08-09", "alice", ParticipantType.STUDENT));
+        testKit.method(ParkedEventsEntity::park).invoke(booked);
+        testKit.method(ParkedEventsEntity::park).invoke(canceled);
+
+        // Parked while the first two were being replayed
+        testKit.method(ParkedEventsEntity::parkIfAnyParked).invoke(available);
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::removeReplayed).invoke(2L).getReply()).isEqualTo(1);
+
+        // A second replay of the same events removes nothing more
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::removeReplayed).invoke(2L).getReply()).isEqualTo(1);
+        Assertions.assertThat(testKit.getState().events())
+                .extracting(ParkedEventsEntity.ParkedEvent::eventType)
+                .containsExactly("marked-available");
+
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::removeReplayed).invoke(3L).getReply()).isZero();
+        Assertions.assertThat(testKit.getState().events()).isEmpty();
+    }
+
+    @Test
+    public void sequenceNumbersAreNotReusedOnceAllEventsAreRemoved() {
+        var booked = parked(new BookingEvent.ParticipantBooked("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+        var canceled = parked(new BookingEvent.ParticipantCanceled("2025-08-08-09", "alice", ParticipantType.STUDENT, "booking1"));
+        testKit.method(ParkedEventsEntity::park).invoke(booked);
+        testKit.method(ParkedEventsEntity::removeReplayed).invoke(1L);
+
+        testKit.method(ParkedEventsEntity::park).invoke(canceled);
+        // A late retry of the first replay must not remove the new event
+        Assertions.assertThat(testKit.method(ParkedEventsEntity::removeReplayed).invoke(1L).getReply()).isEqualTo(1);
+        Assertions.assertThat(testKit.getState().events())
+                .extracting(ParkedEventsEntity.ParkedEvent::sequence)
+                .containsExactly(2L);
+    }
+
+    private static ParkedEventsEntity.ParkedEvent parked(BookingEvent event) {
+        return ParkedEventsEntity.ParkedEvent.of(event, "failed", Instant.parse("2025-08-08T09:00:00Z"));
+    }
+}
@@ -0,0 +1,118 @@
+package io.example.application;
+
+import io.example.application.ParticipantSlotsView.SlotRow;
+import io.example.application.ParticipantSlotsView.SlotStatus;
+import io.example.domain.Participant;
+import io.example.domain.Participant.ParticipantType;
+import io.example.domain.Timeslot;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class ParticipantSlotsRebuildWorkflowTest {
+
+    private static final String SLOT = "2025-08-08-09";
+
+    private final Timeslot slot = new Timeslot(
+            Set.of(new Timeslot.Booking(new Participant("alice", ParticipantType.STUDENT), "booking1"),
+                    new Timeslot.Booking(new Participant("superplane", ParticipantType.AIRCRAFT), "booking1"),
+                    new Timeslot.Booking(new Participant("superteacher", ParticipantType.INSTRUCTOR), "booking1")),
+            Set.of(new Participant("bob", ParticipantType.STUDENT)));
+
+    private final SlotRow alice = booked("alice", "STUDENT", "booking1");
+    private final SlotRow superplane = booked("superplane", "AIRCRAFT", "booking1");
+    private final SlotRow superteacher = booked("superteacher", "INSTRUCTOR", "booking1");
+    private final SlotRow bob = available("bob", "STUDENT");
+
+    @Test
+    public void nothingToRepairWhenRowsMatchTheSlot() {
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, slot,
+                List.of(alice, superplane, superteacher, bob), false);
+
+        Assertions.assertThat(reconciliation.writes()).isEmpty();
+        Assertions.assertThat(reconciliation.removals()).isEmpty();
+    }
+
+    @Test
+    public void missingRowsAreWritten() {
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, slot,
+                List.of(alice, superteacher), false);
+
+        Assertions.assertThat(reconciliation.writes()).containsExactlyInAnyOrder(superplane, bob);
+        Assertions.assertThat(reconciliation.removals()).isEmpty();
+    }
+
+    @Test
+    public void orphanedRowsAreRemoved() {
+        SlotRow carol = available("carol", "STUDENT");
+        SlotRow oldBooking = booked("dave", "STUDENT", "booking0");
+
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, slot,
+                List.of(alice, superplane, superteacher, bob, carol, oldBooking), false);
+
+        Assertions.assertThat(reconciliation.writes()).isEmpty();
+        Assertions.assertThat(reconciliation.removals()).containsExactlyInAnyOrder(carol, oldBooking);
+    }
+
+    @Test
+    public void staleRowsAreRewritten() {
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, slot,
+                List.of(available("alice", "STUDENT"), superplane, superteacher, booked("bob", "STUDENT", "booking0")), false);
+
+        Assertions.assertThat(reconciliation.writes()).containsExactlyInAnyOrder(alice, bob);
+        Assertions.assertThat(reconciliation.removals()).isEmpty();
+    }
+
+    @Test
+    public void forcedRebuildRewritesEveryRow() {
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, slot,
+                List.of(alice, superplane, superteacher, bob), true);
+
+        Assertions.assertThat(reconciliation.writes()).containsExactlyInAnyOrder(alice, superplane, superteacher, bob);
+        Assertions.assertThat(reconciliation.removals()).isEmpty();
+    }
+
+    @Test
+    public void participantIdUsedForTwoTypesKeepsTheBookedRow() {
+        Timeslot clash = new Timeslot(
+                Set.of(new Timeslot.Booking(new Participant("sam", ParticipantType.STUDENT), "booking1")),
+                Set.of(new Participant("sam", ParticipantType.INSTRUCTOR)));
+
+        var reconciliation = ParticipantSlotsRebuildWorkflow.reconcile(SLOT, clash, List.of(), false);
+
+        Assertions.assertThat(reconciliation.writes()).containsExactly(booked("sam", "STUDENT", "booking1"));
+    }
+
+    @Test
+    public void rowsChangedSinceTheSnapshotAreRewritten() {
+        // booking1 was canceled and bob booked after the rebuild read the slot
+        Timeslot later = new Timeslot(
+                Set.of(new Timeslot.Booking(new Participant("bob", ParticipantType.STUDENT), "booking2"),
+                        new Timeslot.Booking(new Participant("superplane", ParticipantType.AIRCRAFT), "booking2"),
+                        new Timeslot.Booking(new Participant("superteacher", ParticipantType.INSTRUCTOR), "booking2")),
+                Set.of());
+
+        var changes = ParticipantSlotsRebuildWorkflow.changedSince(SLOT, slot, later);
+
+        Assertions.assertThat(changes.writes()).containsExactlyInAnyOrder(
+                booked("bob", "STUDENT", "booking2"),
+                booked("superplane", "AIRCRAFT", "booking2"),
+                booked("superteacher", "INSTRUCTOR", "booking2"));
+        Assertions.assertThat(changes.removals()).containsExactly(alice);
+    }
+
+    @Test
+    public void nothingToRewriteWhenTheSlotDidNotChange() {
+        Assertions.assertThat(ParticipantSlotsRebuildWorkflow.changedSince(SLOT, slot, slot).size()).isZero();
+    }
+
+    private static SlotRow available(String participantId, String participantType) {
+        return new SlotRow(SLOT, participantId, participantType, "", SlotStatus.AVAILABLE);
+    }
+
+    private static SlotRow booked(String participantId, String participantType, String bookingId) {
+        return new SlotRow(SLOT, participantId, participantType, bookingId, SlotStatus.BOOKED);
+    }
+}